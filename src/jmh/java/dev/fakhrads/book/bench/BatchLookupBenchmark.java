@@ -0,0 +1,126 @@
+package dev.fakhrads.book.bench;
+
+import dev.fakhrads.book.config.DbConfig;
+import dev.fakhrads.book.config.FlywayConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.io.support.ResourcePropertySource;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Resolving a page render's worth of book ids against the database configured in application.properties: one
+// query per id (what GET /api/books/{id} in a loop costs, minus HTTP), one IN list with a placeholder per id, and
+// the single "id = any (?)" array query behind POST /api/books/lookup. The IN list is a different statement text for
+// every list size, so each size is parsed, planned and cached as a server-side statement of its own.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchLookupBenchmark {
+
+    private static final String COLUMNS = "id, title, author, isbn, published_date, version";
+
+    @Param({"10", "50", "200"})
+    public int size;
+
+    private AnnotationConfigApplicationContext ctx;
+    private Connection conn;
+    private List<Long> allIds;
+    private Long[] ids;
+
+    @Setup
+    public void setUp() throws IOException, SQLException {
+        ctx = new AnnotationConfigApplicationContext();
+        ctx.getEnvironment().getPropertySources().addFirst(new ResourcePropertySource("classpath:application.properties"));
+        ctx.register(DbConfig.class, FlywayConfig.class);
+        ctx.refresh();
+        conn = ctx.getBean(DataSource.class).getConnection();
+        allIds = ids(conn);
+    }
+
+    // a fresh sample each call, so no case is flattered by hitting the same buffers every time
+    @Setup(Level.Invocation)
+    public void sample() {
+        ids = new Long[size];
+        for (int i = 0; i < size; i++) ids[i] = allIds.get(ThreadLocalRandom.current().nextInt(allIds.size()));
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        conn.close();
+        ctx.close();
+    }
+
+    @Benchmark
+    public int perId() throws SQLException {
+        int found = 0;
+        try (PreparedStatement ps = conn.prepareStatement("select " + COLUMNS + " from books where id = ?")) {
+            for (Long id : ids) {
+                ps.setLong(1, id);
+                found += drain(ps);
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int inList() throws SQLException {
+        String placeholders = String.join(", ", Collections.nCopies(ids.length, "?"));
+        try (PreparedStatement ps = conn.prepareStatement("select " + COLUMNS + " from books where id in (" + placeholders + ")")) {
+            for (int i = 0; i < ids.length; i++) ps.setLong(i + 1, ids[i]);
+            return drain(ps);
+        }
+    }
+
+    @Benchmark
+    public int anyArray() throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("select " + COLUMNS + " from books where id = any (?)")) {
+            ps.setArray(1, conn.createArrayOf("bigint", ids));
+            return drain(ps);
+        }
+    }
+
+    private static int drain(PreparedStatement ps) throws SQLException {
+        int rows = 0;
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                rs.getString(2);
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    private static List<Long> ids(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("select id from books order by id limit 100000");
+             ResultSet rs = ps.executeQuery()) {
+            List<Long> ids = new ArrayList<>();
+            while (rs.next()) ids.add(rs.getLong(1));
+            return ids;
+        }
+    }
+}
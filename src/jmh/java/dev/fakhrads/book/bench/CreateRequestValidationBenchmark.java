@@ -0,0 +1,70 @@
+package dev.fakhrads.book.bench;
+
+import dev.fakhrads.book.vo.BookVoCreateRequest;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Bean Validation of the POST body, for a valid request and for one failing every constraint (which also pays for
+// message interpolation).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CreateRequestValidationBenchmark {
+
+    private ValidatorFactory factory;
+    private Validator validator;
+    private BookVoCreateRequest valid;
+    private BookVoCreateRequest invalid;
+
+    @Setup
+    public void setUp() {
+        factory = Validation.buildDefaultValidatorFactory();
+        validator = factory.getValidator();
+        valid = request("Clean Code", "Robert C. Martin", "978-0132350884");
+        invalid = request(" ", "x".repeat(151), null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        factory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<BookVoCreateRequest>> validRequest() {
+        return validator.validate(valid);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<BookVoCreateRequest>> invalidRequest() {
+        return validator.validate(invalid);
+    }
+
+    private static BookVoCreateRequest request(String title, String author, String isbn) {
+        BookVoCreateRequest req = new BookVoCreateRequest();
+        req.setTitle(title);
+        req.setAuthor(author);
+        req.setIsbn(isbn);
+        req.setPublishedDate(LocalDate.of(2008, 8, 1));
+        return req;
+    }
+}
@@ -0,0 +1,160 @@
+package dev.fakhrads.book.bench;
+
+import dev.fakhrads.book.config.DbConfig;
+import dev.fakhrads.book.config.FlywayConfig;
+import dev.fakhrads.book.entity.Book;
+import dev.fakhrads.book.vo.BookVoResponse;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.io.support.ResourcePropertySource;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Compares the read paths of GET /api/books and GET /api/books/{id} against the database configured in
+// application.properties: managed entities copied into BookVoResponse (the old path), a JPQL constructor projection,
+// and plain JDBC row mapping. The profile's -prof gc reports the bytes allocated per call (gc.alloc.rate.norm).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReadPathBenchmark {
+
+    private static final int PAGE = 500;
+
+    private static final String PROJECTION = "select new dev.fakhrads.book.vo.BookVoResponse("
+            + "b.id, b.title, b.author, b.isbn, b.publishedDate, b.version) from Book b ";
+
+    private AnnotationConfigApplicationContext ctx;
+    private EntityManager em;
+    private TransactionTemplate tx;
+    private long maxId;
+
+    @Setup
+    public void setUp() throws IOException {
+        ctx = new AnnotationConfigApplicationContext();
+        ctx.getEnvironment().getPropertySources().addFirst(new ResourcePropertySource("classpath:application.properties"));
+        ctx.register(DbConfig.class, FlywayConfig.class);
+        ctx.refresh();
+
+        em = SharedEntityManagerCreator.createSharedEntityManager(ctx.getBean(EntityManagerFactory.class));
+        tx = new TransactionTemplate(ctx.getBean(PlatformTransactionManager.class));
+        tx.setReadOnly(true);
+        maxId = tx.execute(s -> em.createQuery("select max(b.id) from Book b", Long.class).getSingleResult());
+    }
+
+    @TearDown
+    public void tearDown() {
+        ctx.close();
+    }
+
+    @Benchmark
+    public Object pageEntity() {
+        long afterId = randomId();
+        return tx.execute(s -> em.createQuery("select b from Book b where b.id > :afterId order by b.id asc", Book.class)
+                .setParameter("afterId", afterId)
+                .setMaxResults(PAGE)
+                .getResultList()
+                .stream()
+                .map(ReadPathBenchmark::toResponse)
+                .toList());
+    }
+
+    @Benchmark
+    public Object pageProjection() {
+        long afterId = randomId();
+        return tx.execute(s -> em.createQuery(PROJECTION + "where b.id > :afterId order by b.id asc", BookVoResponse.class)
+                .setParameter("afterId", afterId)
+                .setMaxResults(PAGE)
+                .getResultList());
+    }
+
+    @Benchmark
+    public Object pageJdbc() {
+        long afterId = randomId();
+        return tx.execute(s -> em.unwrap(Session.class).doReturningWork(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "select id, title, author, isbn, published_date, version from books where id > ? order by id limit ?")) {
+                ps.setLong(1, afterId);
+                ps.setInt(2, PAGE);
+                try (ResultSet rs = ps.executeQuery()) {
+                    List<BookVoResponse> rows = new ArrayList<>(PAGE);
+                    while (rs.next()) rows.add(readRow(rs));
+                    return rows;
+                }
+            }
+        }));
+    }
+
+    @Benchmark
+    public Object byIdEntity() {
+        long id = randomId();
+        return tx.execute(s -> {
+            Book book = em.find(Book.class, id);
+            return book == null ? null : toResponse(book);
+        });
+    }
+
+    @Benchmark
+    public Object byIdProjection() {
+        long id = randomId();
+        return tx.execute(s -> em.createQuery(PROJECTION + "where b.id = :id", BookVoResponse.class)
+                .setParameter("id", id)
+                .getResultStream()
+                .findFirst()
+                .orElse(null));
+    }
+
+    @Benchmark
+    public Object byIdJdbc() {
+        long id = randomId();
+        return tx.execute(s -> em.unwrap(Session.class).doReturningWork(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "select id, title, author, isbn, published_date, version from books where id = ?")) {
+                ps.setLong(1, id);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? readRow(rs) : null;
+                }
+            }
+        }));
+    }
+
+    // far enough below the top that a page starting here is full
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(Math.max(1, maxId - PAGE * 4L));
+    }
+
+    private static BookVoResponse toResponse(Book b) {
+        return new BookVoResponse(b.getId(), b.getTitle(), b.getAuthor(), b.getIsbn(), b.getPublishedDate(), b.getVersion());
+    }
+
+    private static BookVoResponse readRow(ResultSet rs) throws SQLException {
+        return new BookVoResponse(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                rs.getObject(5, LocalDate.class), rs.getLong(6));
+    }
+}
@@ -0,0 +1,106 @@
+package dev.fakhrads.book.bench;
+
+import dev.fakhrads.book.dto.DtoHelper;
+import dev.fakhrads.book.dto.DtoResponse;
+import dev.fakhrads.book.vo.BookVoResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// Encode cost and wire size of the GET /api/books page body in each negotiable format, raw and gzipped the way
+// Tomcat compresses it. The byte counts do not vary between runs, so they are printed once per trial as
+// "wire-bytes ..." lines instead of being measured.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseFormatBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    @Param({"20", "100", "500"})
+    public int size;
+
+    private ObjectMapper mapper;
+    private DtoResponse<List<BookVoResponse>> page;
+
+    @Setup
+    public void setUp() {
+        mapper = switch (format) {
+            case "json" -> JsonMapper.builder().build();
+            case "cbor" -> CBORMapper.builder().build();
+            case "smile" -> SmileMapper.builder().build();
+            default -> throw new IllegalArgumentException(format);
+        };
+        List<BookVoResponse> books = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) books.add(book(i + 1));
+        page = DtoHelper.page("OK", books, "MTAw", 1_000_000L, "/api/books");
+
+        byte[] raw = encode();
+        System.out.printf("wire-bytes format=%s size=%d raw=%d gzip=%d%n", format, size, raw.length, gzip(raw).length);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return mapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] encodeGzip() {
+        return gzip(mapper.writeValueAsBytes(page));
+    }
+
+    @Benchmark
+    public Object decode(Encoded encoded) {
+        return mapper.readTree(encoded.bytes);
+    }
+
+    private static byte[] gzip(byte[] raw) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 4 + 64);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(raw);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return out.toByteArray();
+    }
+
+    private static BookVoResponse book(long id) {
+        return new BookVoResponse(id, "Title " + id, "Author " + (id % 97), "isbn-" + id, LocalDate.of(2000, 1, 1).plusDays(id), 0L);
+    }
+
+    // the client side: parse time matters as much as encode time on a phone
+    @State(Scope.Benchmark)
+    public static class Encoded {
+        private byte[] bytes;
+
+        @Setup
+        public void setUp(ResponseFormatBenchmark bench) {
+            bytes = bench.encode();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package dev.fakhrads.book.bench;
+
+import dev.fakhrads.book.dto.DtoHelper;
+import dev.fakhrads.book.dto.DtoResponse;
+import dev.fakhrads.book.entity.Book;
+import dev.fakhrads.book.vo.BookVoResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// Per-request object churn before serialization: the entity -> BookVoResponse copy done by BookServiceImpl.toResponse
+// after writes (a private one-liner over the same constructor) and the DtoHelper envelopes every handler returns.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseMappingBenchmark {
+
+    private Book entity;
+    private BookVoResponse book;
+
+    @Setup
+    public void setUp() {
+        entity = new Book(42L, "The Pragmatic Programmer", "Andrew Hunt", "978-0135957059", LocalDate.of(2019, 9, 13));
+        entity.setVersion(3L);
+        book = new BookVoResponse(42L, entity.getTitle(), entity.getAuthor(), entity.getIsbn(), entity.getPublishedDate(), 3L);
+    }
+
+    @Benchmark
+    public BookVoResponse toResponse() {
+        Book b = entity;
+        return new BookVoResponse(b.getId(), b.getTitle(), b.getAuthor(), b.getIsbn(), b.getPublishedDate(), b.getVersion());
+    }
+
+    @Benchmark
+    public DtoResponse<BookVoResponse> dtoOk() {
+        return DtoHelper.ok("OK", book, "/api/books/42");
+    }
+
+    @Benchmark
+    public DtoResponse<Object> dtoFail() {
+        return DtoHelper.fail("Book not found: 42", null, "/api/books/42");
+    }
+}
@@ -0,0 +1,79 @@
+package dev.fakhrads.book.bench;
+
+import dev.fakhrads.book.dto.DtoHelper;
+import dev.fakhrads.book.dto.DtoJsonEnvelope;
+import dev.fakhrads.book.vo.BookVoResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Jackson cost of the response bodies: one book (mapper vs. the pre-encoded bytes of GET /api/books/{id}) and a
+// page of books at the sizes the list endpoint serves. Uses a default JsonMapper, which orders and formats the
+// envelope the same way as the MVC one.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseSerializationBenchmark {
+
+    private final JsonMapper mapper = JsonMapper.builder().build();
+    private BookVoResponse book;
+    private byte[] bookBytes;
+
+    @Setup
+    public void setUp() {
+        book = book(42);
+        bookBytes = mapper.writeValueAsBytes(book);
+    }
+
+    @Benchmark
+    public byte[] singleBook() {
+        return mapper.writeValueAsBytes(DtoHelper.ok("OK", book, "/api/books/42"));
+    }
+
+    @Benchmark
+    public byte[] singleBookPreEncoded() {
+        return DtoJsonEnvelope.ok("OK", bookBytes, Instant.now(), "/api/books/42");
+    }
+
+    @Benchmark
+    public byte[] bookList(Page page) {
+        return mapper.writeValueAsBytes(DtoHelper.ok("OK", page.books, "/api/books"));
+    }
+
+    private static BookVoResponse book(long id) {
+        return new BookVoResponse(id, "Title " + id, "Author " + (id % 97), "isbn-" + id, LocalDate.of(2000, 1, 1).plusDays(id), 0L);
+    }
+
+    @State(Scope.Benchmark)
+    public static class Page {
+
+        @Param({"1", "20", "100", "500"})
+        public int size;
+
+        private List<BookVoResponse> books;
+
+        @Setup
+        public void setUp() {
+            books = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) books.add(book(i + 1));
+        }
+    }
+}
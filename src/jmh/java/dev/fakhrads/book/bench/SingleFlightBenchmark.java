@@ -0,0 +1,148 @@
+package dev.fakhrads.book.bench;
+
+import dev.fakhrads.book.concurrency.SingleFlight;
+import dev.fakhrads.book.config.DbConfig;
+import dev.fakhrads.book.config.FlywayConfig;
+import dev.fakhrads.book.vo.BookVoResponse;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.io.support.ResourcePropertySource;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// A hot-key read storm against the database configured in application.properties. Each operation releases
+// `concurrency` virtual threads that look up the same book at once, either every lookup running its own query (as
+// GET /api/books/{id} does with the cache off) or through SingleFlight; the four JMH threads storm concurrently, so
+// flights also join across storms. The sampled time is per storm; the queries and lookups counters give the DB
+// queries paid per lookup (queries/lookups), which is the number single-flight exists to drive down.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class SingleFlightBenchmark {
+
+    @Param({"direct", "single-flight"})
+    public String path;
+
+    @Param({"1", "8", "32", "128", "512"})
+    public int concurrency;
+
+    private AnnotationConfigApplicationContext ctx;
+    private DataSource ds;
+    private long hotId;
+    private SingleFlight<Long, BookVoResponse> flight;
+
+    @Setup
+    public void setUp() throws IOException, SQLException {
+        ctx = new AnnotationConfigApplicationContext();
+        ctx.getEnvironment().getPropertySources().addFirst(new ResourcePropertySource("classpath:application.properties"));
+        ctx.register(DbConfig.class, FlywayConfig.class);
+        ctx.refresh();
+        ds = ctx.getBean(DataSource.class);
+        hotId = hotId(ds);
+        flight = new SingleFlight<>();
+    }
+
+    @TearDown
+    public void tearDown() {
+        ctx.close();
+    }
+
+    @Benchmark
+    public void storm(Counters counters) throws InterruptedException {
+        // a query is counted against the storm whose thread ran it; lookups that joined a flight add none
+        Function<Long, BookVoResponse> query = id -> {
+            counters.queries.increment();
+            return findById(ds, id);
+        };
+        Function<Long, BookVoResponse> lookup = path.equals("direct") ? query : id -> flight.load(id, query);
+
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int t = 0; t < concurrency; t++) {
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    lookup.apply(hotId);
+                });
+            }
+            start.countDown();
+        }
+        counters.lookups += concurrency;
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        private final LongAdder queries = new LongAdder();
+        public long lookups;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            queries.reset();
+            lookups = 0;
+        }
+
+        public long queries() {
+            return queries.sum();
+        }
+    }
+
+    private static long hotId(DataSource ds) throws SQLException {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement("select min(id) from books");
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private static BookVoResponse findById(DataSource ds, long id) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                     "select id, title, author, isbn, published_date, version from books where id = ?")) {
+            ps.setLong(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next()
+                        ? new BookVoResponse(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                                rs.getObject(5, LocalDate.class), rs.getLong(6))
+                        : null;
+            }
+        } catch (SQLException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
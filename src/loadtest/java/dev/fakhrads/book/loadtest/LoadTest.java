@@ -0,0 +1,323 @@
+package dev.fakhrads.book.loadtest;
+
+import com.zaxxer.hikari.HikariDataSource;
+import dev.fakhrads.book.config.AppConfig;
+import dev.fakhrads.book.dto.DtoCursor;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+// End-to-end load test of BookRest. Starts an embedded PostgreSQL (or uses jdbc-url=...), boots the application
+// against it on a random port, seeds `books` rows, then drives each endpoint in turn at a fixed arrival rate
+// (OpenLoopDriver): a warmup phase that is thrown away, then a measured phase. Every run writes
+// target/loadtest/<timestamp>/report.json (settings, per-endpoint percentiles, throughput, Hikari pool usage) and one
+// HdrHistogram .hgrm percentile file per endpoint, so runs can be diffed or plotted against each other.
+//
+// Run: mvn -Ploadtest test-compile exec:exec -Dloadtest.args="books=100000 rate=300 duration-s=30"
+// Settings (key=value): books, rate, rate.<endpoint>, warmup-s, duration-s, endpoints, page-size, out, jdbc-url,
+// jdbc-user, jdbc-password. Extra Spring properties can be passed as JVM system properties via -Dloadtest.jvmArgs.
+public class LoadTest {
+
+    private static final List<String> ALL_ENDPOINTS = List.of("create", "findAll", "findById", "put", "patch", "delete");
+
+    private final Map<String, String> settings;
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final Instant startedAt = Instant.now();
+    private final AtomicLong createSeq = new AtomicLong();
+    private final AtomicInteger deleteCursor = new AtomicInteger();
+
+    private String baseUrl;
+    private long[] hotIds;
+    private String[] hotIsbns;
+    private long[] deletableIds;
+
+    private LoadTest(Map<String, String> settings) {
+        this.settings = settings;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> settings = new LinkedHashMap<>();
+        settings.put("books", "100000");
+        settings.put("rate", "200");
+        settings.put("warmup-s", "10");
+        settings.put("duration-s", "30");
+        settings.put("endpoints", String.join(",", ALL_ENDPOINTS));
+        settings.put("page-size", "20");
+        settings.put("out", "target/loadtest");
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            settings.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        new LoadTest(settings).run();
+        System.exit(0);
+    }
+
+    private void run() throws Exception {
+        System.out.println("settings: " + settings);
+        List<String> endpoints = List.of(settings.get("endpoints").split(","));
+        for (String e : endpoints) {
+            if (!ALL_ENDPOINTS.contains(e)) throw new IllegalArgumentException("Unknown endpoint: " + e);
+        }
+
+        EmbeddedPostgres pg = null;
+        String jdbcUrl = settings.get("jdbc-url");
+        String jdbcUser = settings.getOrDefault("jdbc-user", "postgres");
+        String jdbcPassword = settings.getOrDefault("jdbc-password", "");
+        if (jdbcUrl == null) {
+            pg = EmbeddedPostgres.builder()
+                    .setServerConfig("max_connections", "300")
+                    .setServerConfig("synchronous_commit", "off")
+                    .start();
+            jdbcUrl = pg.getJdbcUrl("postgres", "postgres");
+        }
+
+        // devtools only reads this from system properties; left on, it would re-run main() in a restart classloader
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        // passed as command-line arguments so they win over application.properties
+        String[] appArgs = {
+                "--server.port=0",
+                "--spring.datasource.url=" + jdbcUrl,
+                "--spring.datasource.username=" + jdbcUser,
+                "--spring.datasource.password=" + jdbcPassword,
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                "--logging.level.org.flywaydb=WARN"
+        };
+
+        try (ConfigurableApplicationContext ctx = new SpringApplicationBuilder(AppConfig.class).run(appArgs)) {
+            baseUrl = "http://localhost:" + ctx.getEnvironment().getProperty("local.server.port");
+            HikariDataSource pool = ctx.getBean(DataSource.class).unwrap(HikariDataSource.class);
+
+            int reserve = endpoints.contains("delete") ? (int) Math.ceil(rate("delete") * (seconds("warmup-s") + seconds("duration-s")) * 1.05) : 0;
+            seed(pool, Integer.parseInt(settings.get("books")), reserve);
+
+            Path outDir = Path.of(settings.get("out"), LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")));
+            Files.createDirectories(outDir);
+
+            List<Map<String, Object>> results = new ArrayList<>();
+            for (String endpoint : endpoints) {
+                results.add(measure(endpoint, pool, outDir));
+            }
+            writeReport(outDir, results);
+        } finally {
+            if (pg != null) pg.close();
+        }
+    }
+
+    private Map<String, Object> measure(String endpoint, HikariDataSource pool, Path outDir) throws Exception {
+        double rate = rate(endpoint);
+        LongFunction<HttpRequest> requests = requests(endpoint);
+        System.out.printf(Locale.ROOT, "%-9s warmup %ds at %.0f/s ...%n", endpoint, (long) seconds("warmup-s"), rate);
+        OpenLoopDriver.run(rate, TimeUnit.SECONDS.toNanos((long) seconds("warmup-s")), seq -> send(requests.apply(seq)));
+
+        OpenLoopDriver.Result result;
+        Map<String, Object> hikari;
+        try (PoolSampler sampler = new PoolSampler(pool.getHikariPoolMXBean(), pool.getMaximumPoolSize())) {
+            result = OpenLoopDriver.run(rate, TimeUnit.SECONDS.toNanos((long) seconds("duration-s")), seq -> send(requests.apply(seq)));
+            hikari = sampler.summary();
+        }
+
+        try (PrintStream out = new PrintStream(Files.newOutputStream(outDir.resolve(endpoint + ".hgrm")))) {
+            result.latency().outputPercentileDistribution(out, 1_000_000.0);
+        }
+
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("endpoint", endpoint);
+        row.put("targetRatePerSecond", rate);
+        row.put("requests", result.requests());
+        row.put("errors", result.errors());
+        row.put("throughputPerSecond", round(result.throughputPerSecond()));
+        row.put("maxSendLagMs", round(result.maxSendLagNanos() / 1e6));
+        row.put("latencyMs", percentiles(result.latency()));
+        row.put("serviceTimeMs", percentiles(result.service()));
+        row.put("hikari", hikari);
+        return row;
+    }
+
+    private LongFunction<HttpRequest> requests(String endpoint) {
+        int pageSize = Integer.parseInt(settings.get("page-size"));
+        return switch (endpoint) {
+            case "create" -> seq -> {
+                long n = createSeq.incrementAndGet();
+                return json("POST", "/api/books", body("Load " + n, "lt-" + runId + "-" + n));
+            };
+            case "findAll" -> seq -> get("/api/books?limit=" + pageSize + "&after=" + DtoCursor.encode(hotIds[randomHot()] - 1));
+            case "findById" -> seq -> get("/api/books/" + hotIds[randomHot()]);
+            case "put" -> seq -> {
+                int i = randomHot();
+                return json("PUT", "/api/books/" + hotIds[i], body("Put " + seq, hotIsbns[i]));
+            };
+            case "patch" -> seq -> json("PATCH", "/api/books/" + hotIds[randomHot()], "{\"title\":\"Patch " + seq + "\"}");
+            case "delete" -> seq -> {
+                int i = deleteCursor.getAndIncrement();
+                if (i >= deletableIds.length) throw new IllegalStateException("Ran out of rows reserved for delete");
+                return HttpRequest.newBuilder(URI.create(baseUrl + "/api/books/" + deletableIds[i])).DELETE().build();
+            };
+            default -> throw new IllegalArgumentException(endpoint);
+        };
+    }
+
+    private boolean send(HttpRequest request) {
+        try {
+            int status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            return status >= 200 && status < 300;
+        } catch (IOException ex) {
+            return false;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    private HttpRequest json(String method, String path, String body) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static String body(String title, String isbn) {
+        return "{\"title\":\"" + title + "\",\"author\":\"Load Author\",\"isbn\":\"" + isbn + "\",\"publishedDate\":\"2001-02-03\"}";
+    }
+
+    private int randomHot() {
+        return ThreadLocalRandom.current().nextInt(hotIds.length);
+    }
+
+    // one set-based insert; the last `reserve` rows are handed out once each to the delete phases
+    private void seed(DataSource ds, int books, int reserve) throws Exception {
+        long started = System.nanoTime();
+        String prefix = "lt-seed-" + runId + "-";
+        List<Long> ids = new ArrayList<>();
+        List<String> isbns = new ArrayList<>();
+        try (Connection c = ds.getConnection(); Statement st = c.createStatement()) {
+            st.executeUpdate("insert into books (title, author, isbn, published_date) "
+                    + "select 'Seed title ' || g, 'Seed author ' || (g % 1000), '" + prefix + "' || g, date '2000-01-01' + (g % 9000) "
+                    + "from generate_series(1, " + (books + reserve) + ") g");
+            st.execute("analyze books");
+            try (ResultSet rs = st.executeQuery("select id, isbn from books where isbn like '" + prefix + "%' order by id")) {
+                while (rs.next()) {
+                    ids.add(rs.getLong(1));
+                    isbns.add(rs.getString(2));
+                }
+            }
+        }
+        int hot = ids.size() - reserve;
+        hotIds = new long[hot];
+        hotIsbns = new String[hot];
+        deletableIds = new long[reserve];
+        for (int i = 0; i < ids.size(); i++) {
+            if (i < hot) {
+                hotIds[i] = ids.get(i);
+                hotIsbns[i] = isbns.get(i);
+            } else {
+                deletableIds[i - hot] = ids.get(i);
+            }
+        }
+        System.out.printf(Locale.ROOT, "seeded %d books (+%d for delete) in %d ms%n",
+                hot, reserve, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    private void writeReport(Path outDir, List<Map<String, Object>> results) throws IOException {
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("startedAt", startedAt.toString());
+        run.put("gitCommit", gitCommit());
+        run.put("javaVersion", Runtime.version().toString());
+        run.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        run.put("settings", settings);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("run", run);
+        report.put("endpoints", results);
+        Path file = outDir.resolve("report.json");
+        JsonMapper.builder().build().writerWithDefaultPrettyPrinter().writeValue(file.toFile(), report);
+
+        System.out.printf(Locale.ROOT, "%n%-9s %9s %7s %9s %9s %9s %9s %9s %10s%n",
+                "endpoint", "req/s", "errors", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "svc p99", "pool max");
+        for (Map<String, Object> r : results) {
+            @SuppressWarnings("unchecked") Map<String, Object> lat = (Map<String, Object>) r.get("latencyMs");
+            @SuppressWarnings("unchecked") Map<String, Object> svc = (Map<String, Object>) r.get("serviceTimeMs");
+            @SuppressWarnings("unchecked") Map<String, Object> pool = (Map<String, Object>) r.get("hikari");
+            System.out.printf(Locale.ROOT, "%-9s %9.1f %7d %9.3f %9.3f %9.3f %9.3f %9.3f %6s/%-3s%n",
+                    r.get("endpoint"), r.get("throughputPerSecond"), r.get("errors"),
+                    lat.get("p50"), lat.get("p99"), lat.get("p999"), lat.get("max"), svc.get("p99"),
+                    pool.get("maxActive"), pool.get("maximumPoolSize"));
+        }
+        System.out.println("report: " + file.toAbsolutePath());
+    }
+
+    private static Map<String, Object> percentiles(Histogram h) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("p50", ms(h.getValueAtPercentile(50)));
+        out.put("p90", ms(h.getValueAtPercentile(90)));
+        out.put("p99", ms(h.getValueAtPercentile(99)));
+        out.put("p999", ms(h.getValueAtPercentile(99.9)));
+        out.put("max", ms(h.getMaxValue()));
+        out.put("mean", round(h.getMean() / 1e6));
+        return out;
+    }
+
+    private static String gitCommit() {
+        try {
+            Process p = new ProcessBuilder("git", "rev-parse", "--short", "HEAD").redirectErrorStream(true).start();
+            String out = new String(p.getInputStream().readAllBytes()).trim();
+            return p.waitFor() == 0 ? out : null;
+        } catch (IOException | InterruptedException ex) {
+            return null;
+        }
+    }
+
+    private double rate(String endpoint) {
+        return Double.parseDouble(settings.getOrDefault("rate." + endpoint, settings.get("rate")));
+    }
+
+    private double seconds(String key) {
+        return Double.parseDouble(settings.get(key));
+    }
+
+    private static double ms(long nanos) {
+        return round(nanos / 1e6);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
@@ -0,0 +1,71 @@
+package dev.fakhrads.book.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongPredicate;
+
+// Fixed arrival rate, open loop: request i is due at start + i * interval no matter how earlier requests are doing,
+// and each one runs on its own virtual thread, so a slow response never delays the next send. Latency is measured
+// from the due time (not from when the request actually went out), which is what keeps coordinated omission out of
+// the percentiles; the send-to-response service time is recorded separately so the two can be compared.
+final class OpenLoopDriver {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private OpenLoopDriver() {}
+
+    // the request receives its sequence number and returns whether it succeeded
+    static Result run(double ratePerSecond, long durationNanos, LongPredicate request) throws InterruptedException {
+        Histogram latency = new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3);
+        Histogram service = new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3);
+        AtomicLong errors = new AtomicLong();
+        AtomicLong maxSendLagNanos = new AtomicLong();
+
+        double intervalNanos = 1_000_000_000d / ratePerSecond;
+        long total = (long) Math.floor(durationNanos / intervalNanos);
+        long start = System.nanoTime();
+
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; i < total; i++) {
+                long due = start + (long) (i * intervalNanos);
+                long now;
+                while ((now = System.nanoTime()) < due) {
+                    LockSupport.parkNanos(due - now);
+                }
+                maxSendLagNanos.accumulateAndGet(now - due, Math::max);
+
+                long seq = i;
+                workers.execute(() -> {
+                    long sent = System.nanoTime();
+                    boolean ok;
+                    try {
+                        ok = request.test(seq);
+                    } catch (RuntimeException ex) {
+                        ok = false;
+                    }
+                    long done = System.nanoTime();
+                    latency.recordValue(Math.min(done - due, HIGHEST_TRACKABLE_NANOS));
+                    service.recordValue(Math.min(done - sent, HIGHEST_TRACKABLE_NANOS));
+                    if (!ok) errors.incrementAndGet();
+                });
+            }
+        }
+        // close() above waited for every in-flight request, so the wall time includes the tail
+        long elapsed = System.nanoTime() - start;
+        return new Result(total, errors.get(), elapsed, maxSendLagNanos.get(), latency, service);
+    }
+
+    record Result(long requests, long errors, long elapsedNanos, long maxSendLagNanos,
+                  Histogram latency, Histogram service) {
+
+        double throughputPerSecond() {
+            return (requests - errors) / (elapsedNanos / 1e9);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package dev.fakhrads.book.loadtest;
+
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Samples the Hikari pool while a phase runs: how many connections were busy and how many threads were queued for
+// one. A pool that sits at maximum with a waiting queue is the first thing to look at when p99 moves.
+final class PoolSampler implements AutoCloseable {
+
+    private static final long PERIOD_MS = 50;
+
+    private final HikariPoolMXBean pool;
+    private final int maximumPoolSize;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "loadtest-pool-sampler");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private long samples;
+    private long activeSum;
+    private long pendingSum;
+    private int maxActive;
+    private int maxPending;
+
+    PoolSampler(HikariPoolMXBean pool, int maximumPoolSize) {
+        this.pool = pool;
+        this.maximumPoolSize = maximumPoolSize;
+        timer.scheduleAtFixedRate(this::sample, 0, PERIOD_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void sample() {
+        int active = pool.getActiveConnections();
+        int pending = pool.getThreadsAwaitingConnection();
+        samples++;
+        activeSum += active;
+        pendingSum += pending;
+        maxActive = Math.max(maxActive, active);
+        maxPending = Math.max(maxPending, pending);
+    }
+
+    synchronized Map<String, Object> summary() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("maximumPoolSize", maximumPoolSize);
+        out.put("samples", samples);
+        out.put("meanActive", samples == 0 ? 0 : (double) activeSum / samples);
+        out.put("maxActive", maxActive);
+        out.put("meanPending", samples == 0 ? 0 : (double) pendingSum / samples);
+        out.put("maxPending", maxPending);
+        out.put("totalConnections", pool.getTotalConnections());
+        out.put("idleConnections", pool.getIdleConnections());
+        return out;
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+    }
+}
@@ -0,0 +1,149 @@
+package dev.fakhrads.book.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import dev.fakhrads.book.concurrency.SingleFlight;
+import dev.fakhrads.book.vo.BookVoCacheStats;
+import dev.fakhrads.book.vo.BookVoResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+@Component
+public class BookCache {
+
+    private final boolean enabled;
+    private final long maximumSize;
+    private final long expireAfterWriteMs;
+    private final AsyncCache<Long, BookVoResponse> cache;
+
+    // keyed reads that are not (or not yet) cached still share one query per key while it is in flight
+    private final SingleFlight<Long, BookVoResponse> uncachedLoads = new SingleFlight<>();
+    private final SingleFlight<Long, Long> versionLoads = new SingleFlight<>();
+    private final SingleFlight<String, BookVoResponse> isbnLoads = new SingleFlight<>();
+
+    public BookCache(
+            @Value("${book.cache.enabled:true}") boolean enabled,
+            @Value("${book.cache.maximum-size:10000}") long maximumSize,
+            @Value("${book.cache.expire-after-write-ms:600000}") long expireAfterWriteMs
+    ) {
+        this.enabled = enabled;
+        this.maximumSize = maximumSize;
+        this.expireAfterWriteMs = expireAfterWriteMs;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(expireAfterWriteMs))
+                .recordStats()
+                .buildAsync();
+    }
+
+    // a null from the loader is not cached. An eviction racing with an in-flight load of the same id drops the
+    // pending entry, so a value read before a write committed cannot outlive that write.
+    // The map only ever holds a future while its bin lock is taken; the load itself runs afterwards on the caller's
+    // thread. Loading inside computeIfAbsent would hold a synchronized bin lock across JDBC I/O, which pins the
+    // carrier of a virtual thread for the whole query.
+    public BookVoResponse get(Long id, Function<Long, BookVoResponse> loader) {
+        if (!enabled) return uncachedLoads.load(id, loader);
+
+        CompletableFuture<BookVoResponse> created = new CompletableFuture<>();
+        CompletableFuture<BookVoResponse> future = cache.get(id, (key, executor) -> created);
+        if (future != created) return await(future);
+
+        try {
+            BookVoResponse value = loader.apply(id);
+            created.complete(value);
+            return value;
+        } catch (RuntimeException | Error ex) {
+            created.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    public Long version(Long id, Function<Long, Long> loader) {
+        BookVoResponse cached = peek(id);
+        if (cached != null) return cached.getVersion();
+        return versionLoads.load(id, loader);
+    }
+
+    // not cached: an ISBN can move between books, and nothing here is keyed by it for eviction
+    public BookVoResponse byIsbn(String isbn, Function<String, BookVoResponse> loader) {
+        return isbnLoads.load(isbn, loader);
+    }
+
+    public BookVoResponse peek(Long id) {
+        if (!enabled) return null;
+        CompletableFuture<BookVoResponse> future = cache.getIfPresent(id);
+        return future != null && future.isDone() && !future.isCompletedExceptionally() ? future.join() : null;
+    }
+
+    // the book's ISBN may have changed too, so no in-flight ISBN lookup is joined after this commit
+    public void evictAfterCommit(Long id) {
+        afterCompletion(() -> {
+            cache.synchronous().invalidate(id);
+            uncachedLoads.forget(id);
+            versionLoads.forget(id);
+            isbnLoads.forgetAll();
+        });
+    }
+
+    // new books: an ISBN lookup in flight may have started before they existed
+    public void evictIsbnLookupsAfterCommit() {
+        afterCompletion(isbnLoads::forgetAll);
+    }
+
+    public void clearAfterCommit() {
+        afterCompletion(() -> {
+            cache.synchronous().invalidateAll();
+            uncachedLoads.forgetAll();
+            versionLoads.forgetAll();
+            isbnLoads.forgetAll();
+        });
+    }
+
+    public BookVoCacheStats stats() {
+        CacheStats s = cache.synchronous().stats();
+        BookVoCacheStats stats = new BookVoCacheStats();
+        stats.setEnabled(enabled);
+        stats.setSize(cache.synchronous().estimatedSize());
+        stats.setMaximumSize(maximumSize);
+        stats.setExpireAfterWriteMs(expireAfterWriteMs);
+        stats.setHitCount(s.hitCount());
+        stats.setMissCount(s.missCount());
+        stats.setHitRate(s.hitRate());
+        stats.setLoadCount(s.loadCount());
+        stats.setEvictionCount(s.evictionCount());
+        stats.setCoalescedCount(uncachedLoads.getShared() + versionLoads.getShared() + isbnLoads.getShared());
+        return stats;
+    }
+
+    private static BookVoResponse await(CompletableFuture<BookVoResponse> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) throw cause;
+            if (ex.getCause() instanceof Error cause) throw cause;
+            throw ex;
+        }
+    }
+
+    private void afterCompletion(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        // runs on commit and rollback alike; evicting after a rollback only costs one extra load
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,42 @@
+package dev.fakhrads.book.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.fakhrads.book.vo.BookVoResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+// UTF-8 JSON of a book's data payload, encoded once per row version by the MVC JsonMapper. Entries are keyed by id
+// and only served while their version matches the book being rendered, so every write (which bumps the version)
+// invalidates them without extra bookkeeping; a deleted book never reaches this point because the lookup 404s first.
+@Component
+public class BookJsonCache {
+
+    private final JsonMapper mapper;
+    private final boolean enabled;
+    private final Cache<Long, Encoded> cache;
+
+    public BookJsonCache(
+            JsonMapper mapper,
+            @Value("${book.cache.json.enabled:true}") boolean enabled,
+            @Value("${book.cache.maximum-size:10000}") long maximumSize
+    ) {
+        this.mapper = mapper;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder().maximumSize(maximumSize).build();
+    }
+
+    public byte[] encode(BookVoResponse book) {
+        if (!enabled || book.getVersion() == null) return mapper.writeValueAsBytes(book);
+
+        Encoded cached = cache.getIfPresent(book.getId());
+        if (cached != null && cached.version == book.getVersion()) return cached.bytes;
+
+        byte[] bytes = mapper.writeValueAsBytes(book);
+        cache.put(book.getId(), new Encoded(book.getVersion(), bytes));
+        return bytes;
+    }
+
+    private record Encoded(long version, byte[] bytes) {}
+}
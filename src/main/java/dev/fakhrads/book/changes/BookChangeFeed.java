@@ -0,0 +1,434 @@
+package dev.fakhrads.book.changes;
+
+import dev.fakhrads.book.dao.BookChangeDao;
+import dev.fakhrads.book.exception.ServiceUnavailableException;
+import dev.fakhrads.book.exception.TooManyRequestsException;
+import dev.fakhrads.book.routing.ReadRouting;
+import dev.fakhrads.book.vo.BookVoChange;
+import dev.fakhrads.book.vo.BookVoChangeFeedStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Feeds GET /api/books/changes. One tailer thread reads book_changes in id order (one indexed query per poll, however
+// many clients are connected), renders every change into an SSE frame once and appends it to an in-memory ring.
+// Each subscriber only holds a position in that ring; a publish wakes it and a virtual thread copies the frames out,
+// so a slow client delays nobody but itself. A client a whole ring behind is disconnected and comes back with
+// Last-Event-ID: resumes still in the ring cost nothing, older ones are backfilled from the table once, and ones
+// older than retention get a reset event.
+// Nothing committed is ever skipped: a hole in the ids holds delivery until the transactions that could own it
+// have ended (see poll), however long that takes.
+@Component
+public class BookChangeFeed implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(BookChangeFeed.class);
+    private static final MediaType TEXT = new MediaType("text", "plain", StandardCharsets.UTF_8);
+    private static final Set<DataWithMediaType> HEARTBEAT = Set.of(new DataWithMediaType(":keepalive\n\n", TEXT));
+
+    private final BookChangeDao dao;
+    private final JsonMapper jsonMapper;
+    private final TransactionTemplate readTx;
+    private final TransactionTemplate writeTx;
+    private final boolean enabled;
+    private final long pollIntervalMs;
+    private final int batchSize;
+    private final long gapWarnMs;
+    private final int maxBackfill;
+    private final int maxSubscribers;
+    private final long emitterTimeoutMs;
+    private final long heartbeatMs;
+    private final long retentionMs;
+    private final long retentionIntervalMs;
+
+    private final Event[] ring;
+    // appends and the (published, floorId) snapshot taken by subscribe; readers of the ring itself take no lock
+    private final ReentrantLock ringLock = new ReentrantLock();
+    private volatile long published;
+    private long floorId;
+    private volatile long cursor;
+    private volatile long compactedThrough;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final LongAdder backfills = new LongAdder();
+    private final LongAdder resets = new LongAdder();
+    private final LongAdder laggingDisconnects = new LongAdder();
+    private final LongAdder gapsSkipped = new LongAdder();
+
+    private Thread tailer;
+    private volatile boolean running;
+    private volatile boolean ready;
+    // tailer thread only: the start position being settled, and the hole delivery is waiting on
+    private long settleId;
+    private long settleXid;
+    private long gapId;
+    private long gapReleaseXid;
+    private long gapSeenAt;
+    private boolean gapWarned;
+
+    public BookChangeFeed(
+            BookChangeDao dao,
+            JsonMapper jsonMapper,
+            PlatformTransactionManager txManager,
+            @Value("${book.changes.enabled:true}") boolean enabled,
+            @Value("${book.changes.poll-interval-ms:200}") long pollIntervalMs,
+            @Value("${book.changes.batch-size:500}") int batchSize,
+            @Value("${book.changes.ring-size:10000}") int ringSize,
+            @Value("${book.changes.gap-warn-ms:5000}") long gapWarnMs,
+            @Value("${book.changes.max-backfill:10000}") int maxBackfill,
+            @Value("${book.changes.max-subscribers:10000}") int maxSubscribers,
+            @Value("${book.changes.emitter-timeout-ms:1800000}") long emitterTimeoutMs,
+            @Value("${book.changes.heartbeat-ms:15000}") long heartbeatMs,
+            @Value("${book.changes.retention-ms:86400000}") long retentionMs,
+            @Value("${book.changes.retention-interval-ms:60000}") long retentionIntervalMs
+    ) {
+        this.dao = dao;
+        this.jsonMapper = jsonMapper;
+        this.readTx = new TransactionTemplate(txManager);
+        this.readTx.setReadOnly(true);
+        this.writeTx = new TransactionTemplate(txManager);
+        this.enabled = enabled;
+        this.pollIntervalMs = pollIntervalMs;
+        this.batchSize = batchSize;
+        this.gapWarnMs = gapWarnMs;
+        this.maxBackfill = maxBackfill;
+        this.maxSubscribers = maxSubscribers;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.heartbeatMs = heartbeatMs;
+        this.retentionMs = retentionMs;
+        this.retentionIntervalMs = retentionIntervalMs;
+        this.ring = new Event[ringSize];
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public SseEmitter subscribe(Long lastEventId) {
+        if (!ready) throw new ServiceUnavailableException("Change feed is starting", 1);
+        if (subscribers.size() >= maxSubscribers) {
+            throw new TooManyRequestsException("Too many change feed subscribers", 5);
+        }
+        Subscriber sub = new Subscriber(newEmitter());
+
+        long pub;
+        long floorSeq;
+        long floor;
+        long current;
+        ringLock.lock();
+        try {
+            pub = published;
+            floorSeq = Math.max(0, pub - ring.length);
+            floor = floorId;
+            current = cursor;
+        } finally {
+            ringLock.unlock();
+        }
+
+        if (lastEventId == null || lastEventId >= current) {
+            sub.next = pub;
+        } else if (lastEventId >= floor) {
+            sub.next = firstSeqAfter(lastEventId, floorSeq, pub);
+        } else if (lastEventId < compactedThrough) {
+            sub.backlog.add(reset("Last-Event-ID " + lastEventId + " is older than the retained changes"));
+            sub.next = pub;
+        } else {
+            // older than the ring but still in the table: one query for this client, then it joins the ring
+            List<BookVoChange> rows = ReadRouting.onPrimary(() -> readTx.execute(status -> dao.findAfter(lastEventId, maxBackfill + 1)));
+            List<BookVoChange> missed = rows.stream().filter(c -> c.getId() <= floor).toList();
+            if (missed.size() > maxBackfill) {
+                sub.backlog.add(reset("More than " + maxBackfill + " changes since Last-Event-ID " + lastEventId));
+                sub.next = pub;
+            } else {
+                for (BookVoChange c : missed) sub.backlog.add(render(c).frame);
+                sub.next = floorSeq;
+                backfills.increment();
+            }
+        }
+
+        sub.emitter.onCompletion(() -> subscribers.remove(sub));
+        sub.emitter.onTimeout(() -> subscribers.remove(sub));
+        sub.emitter.onError(ex -> subscribers.remove(sub));
+        subscribers.add(sub);
+        wake(sub);
+        return sub.emitter;
+    }
+
+    public BookVoChangeFeedStats stats() {
+        BookVoChangeFeedStats stats = new BookVoChangeFeedStats();
+        stats.setEnabled(enabled);
+        stats.setSubscribers(subscribers.size());
+        stats.setLastChangeId(cursor);
+        stats.setCompactedThroughId(compactedThrough);
+        stats.setPublished(published);
+        stats.setRingSize(ring.length);
+        stats.setBackfills(backfills.sum());
+        stats.setResets(resets.sum());
+        stats.setLaggingDisconnects(laggingDisconnects.sum());
+        stats.setGapsSkipped(gapsSkipped.sum());
+        return stats;
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) return;
+        running = true;
+        tailer = new Thread(this::tail, "book-change-feed");
+        tailer.setDaemon(true);
+        tailer.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (tailer != null) tailer.interrupt();
+        for (Subscriber sub : subscribers) sub.emitter.complete();
+        subscribers.clear();
+        senders.shutdown();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void tail() {
+        while (running && !ready) {
+            try {
+                if (settle()) break;
+            } catch (RuntimeException ex) {
+                log.warn("Change feed start failed: {}", ex.toString());
+            }
+            try {
+                Thread.sleep(pollIntervalMs);
+            } catch (InterruptedException ex) {
+                return;
+            }
+        }
+        long nextHeartbeat = System.currentTimeMillis() + heartbeatMs;
+        long nextRetention = System.currentTimeMillis();
+        while (running) {
+            boolean more = false;
+            try {
+                more = poll();
+                long now = System.currentTimeMillis();
+                if (now >= nextHeartbeat) {
+                    subscribers.forEach(sub -> senders.execute(() -> send(sub, HEARTBEAT)));
+                    nextHeartbeat = now + heartbeatMs;
+                }
+                if (now >= nextRetention) {
+                    compact();
+                    nextRetention = now + retentionIntervalMs;
+                }
+            } catch (RuntimeException ex) {
+                log.warn("Change feed poll failed: {}", ex.toString());
+            }
+            if (!more) {
+                try {
+                    Thread.sleep(pollIntervalMs);
+                } catch (InterruptedException ex) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // The feed starts after the last id handed out so far. Ids drawn but not yet committed may sit below it, so the
+    // start waits until every transaction running at that point has ended; their rows are then history, served to
+    // Last-Event-ID resumes from the table like any other. Returns true once the feed is open to subscribers.
+    boolean settle() {
+        if (settleXid == 0) {
+            settleId = ReadRouting.onPrimary(() -> readTx.execute(status -> dao.findLastId()));
+            settleXid = snapshotBounds()[1];
+        }
+        if (snapshotBounds()[0] < settleXid) return false;
+
+        Long first = ReadRouting.onPrimary(() -> readTx.execute(status -> dao.findFirstId()));
+        ringLock.lock();
+        try {
+            cursor = settleId;
+            floorId = settleId;
+        } finally {
+            ringLock.unlock();
+        }
+        compactedThrough = first == null ? settleId : first - 1;
+        ready = true;
+        log.info("Change feed started at change id {}", settleId);
+        return true;
+    }
+
+    // ids are handed out at insert time but become visible at commit, so a hole after the cursor is a writer that has
+    // not committed yet or one that rolled back. Writers take their transaction id before the change id (see
+    // BookChangeDaoImpl), so whoever owns the hole was running when it was first seen: delivery stops there until the
+    // hole fills or the snapshot xmin passes every transaction id of that moment, and only then is it skipped as a
+    // rollback. Returns true when a full batch was read and more may be waiting.
+    boolean poll() {
+        List<BookVoChange> rows = ReadRouting.onPrimary(() -> readTx.execute(status -> dao.findAfter(cursor, batchSize)));
+        List<Event> events = new ArrayList<>(rows.size());
+        long expected = cursor + 1;
+        for (BookVoChange c : rows) {
+            if (c.getId() != expected) {
+                if (!holeReleased(expected)) break;
+                gapsSkipped.add(c.getId() - expected);
+            }
+            events.add(render(c));
+            expected = c.getId() + 1;
+        }
+        if (!events.isEmpty()) publish(events);
+        return rows.size() == batchSize && events.size() == rows.size();
+    }
+
+    // bounds are read after the rows that showed the hole, so they cover every transaction that could own it
+    private boolean holeReleased(long id) {
+        long[] bounds = snapshotBounds();
+        long now = System.currentTimeMillis();
+        if (gapId != id) {
+            gapId = id;
+            gapReleaseXid = bounds[1];
+            gapSeenAt = now;
+            gapWarned = false;
+        }
+        if (bounds[0] >= gapReleaseXid) {
+            gapId = 0;
+            return true;
+        }
+        if (!gapWarned && now - gapSeenAt >= gapWarnMs) {
+            gapWarned = true;
+            log.warn("Change id {} is held by a transaction open for over {} ms; the change feed waits for it", id, now - gapSeenAt);
+        }
+        return false;
+    }
+
+    private long[] snapshotBounds() {
+        return ReadRouting.onPrimary(() -> readTx.execute(status -> dao.findSnapshotBounds()));
+    }
+
+    private void publish(List<Event> events) {
+        ringLock.lock();
+        try {
+            long seq = published;
+            for (Event e : events) {
+                int slot = (int) (seq % ring.length);
+                if (ring[slot] != null) floorId = ring[slot].id;
+                ring[slot] = e;
+                seq++;
+            }
+            cursor = events.get(events.size() - 1).id;
+            published = seq;
+        } finally {
+            ringLock.unlock();
+        }
+        subscribers.forEach(this::wake);
+    }
+
+    private void compact() {
+        Instant cutoff = Instant.now().minusMillis(retentionMs);
+        long total = 0;
+        long[] deleted;
+        do {
+            deleted = writeTx.execute(status -> dao.deleteOlderThan(cutoff, 10_000));
+            total += deleted[0];
+            if (deleted[1] > compactedThrough) compactedThrough = deleted[1];
+        } while (deleted[0] == 10_000 && running);
+        if (total > 0) log.info("Change feed retention removed {} changes through id {}", total, compactedThrough);
+    }
+
+    private void wake(Subscriber sub) {
+        if (sub.scheduled.compareAndSet(false, true)) senders.execute(() -> pump(sub));
+    }
+
+    private void pump(Subscriber sub) {
+        do {
+            while (!sub.backlog.isEmpty()) {
+                if (!send(sub, sub.backlog.poll())) return;
+            }
+            while (sub.next < published) {
+                Event e = ring[(int) (sub.next % ring.length)];
+                // the slot may have been overwritten while it was read; either way this client lost its place
+                if (published - sub.next > ring.length) {
+                    laggingDisconnects.increment();
+                    subscribers.remove(sub);
+                    sub.emitter.complete();
+                    return;
+                }
+                if (!send(sub, e.frame)) return;
+                sub.next++;
+            }
+            sub.scheduled.set(false);
+        } while (sub.next < published && sub.scheduled.compareAndSet(false, true));
+    }
+
+    private boolean send(Subscriber sub, Set<DataWithMediaType> frame) {
+        try {
+            sub.emitter.send(frame);
+            return true;
+        } catch (IOException | IllegalStateException ex) {
+            // the client went away; the emitter's error callback also unregisters it
+            subscribers.remove(sub);
+            return false;
+        }
+    }
+
+    private long firstSeqAfter(long lastEventId, long from, long to) {
+        long lo = from;
+        long hi = to;
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            Event e = ring[(int) (mid % ring.length)];
+            if (e != null && e.id <= lastEventId) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    SseEmitter newEmitter() {
+        return new SseEmitter(emitterTimeoutMs);
+    }
+
+    private Event render(BookVoChange c) {
+        String text = "id:" + c.getId() + "\nevent:book\ndata:" + jsonMapper.writeValueAsString(c) + "\n\n";
+        return new Event(c.getId(), Set.of(new DataWithMediaType(text, TEXT)));
+    }
+
+    // carries the current position as its id, so the client's automatic reconnect resumes from now on
+    private Set<DataWithMediaType> reset(String reason) {
+        resets.increment();
+        String text = "id:" + cursor + "\nevent:reset\ndata:" + jsonMapper.writeValueAsString(reason) + "\n\n";
+        return Set.of(new DataWithMediaType(text, TEXT));
+    }
+
+    private record Event(long id, Set<DataWithMediaType> frame) {}
+
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        final Deque<Set<DataWithMediaType>> backlog = new ArrayDeque<>();
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        volatile long next;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+}
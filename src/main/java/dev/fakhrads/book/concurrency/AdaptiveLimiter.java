@@ -0,0 +1,72 @@
+package dev.fakhrads.book.concurrency;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// AIMD concurrency limit for one operation class. A call is admitted only while fewer than `limit` calls are in
+// flight; anything beyond is refused at once instead of queueing on the pool. Each completed call is a sample:
+// a call slower than the latency target (or one that failed on a pool/connection timeout) multiplies the limit by
+// the backoff ratio, and results of the calls that were already in flight at that point are not held against the new
+// limit, so one burst of slow calls is one congestion event; otherwise the limit grows by 1/limit, i.e. by about one
+// per limit's worth of calls, while at least half of it is in use.
+public class AdaptiveLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyTargetNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder backoffs = new LongAdder();
+    private volatile double limit;
+
+    // guarded by this
+    private long samples;
+    private long noBackoffUntil;
+
+    public AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio, long latencyTargetMs) {
+        if (minLimit < 1 || maxLimit < minLimit) throw new IllegalArgumentException("need 1 <= min-limit <= max-limit");
+        if (backoffRatio <= 0 || backoffRatio >= 1) throw new IllegalArgumentException("backoff-ratio must be in (0, 1)");
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyTargetNanos = TimeUnit.MILLISECONDS.toNanos(latencyTargetMs);
+        this.limit = Math.clamp(initialLimit, minLimit, maxLimit);
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) return true;
+        }
+    }
+
+    // overloaded: the call failed because the database could not keep up (pool timeout and the like)
+    public void release(long rttNanos, boolean overloaded) {
+        int stillInFlight = inFlight.decrementAndGet();
+        synchronized (this) {
+            samples++;
+            if (overloaded || rttNanos > latencyTargetNanos) {
+                if (samples > noBackoffUntil) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                    noBackoffUntil = samples + stillInFlight;
+                    backoffs.increment();
+                }
+            } else if ((stillInFlight + 1) * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+        }
+    }
+
+    public int getLimit() { return (int) limit; }
+    public int getInFlight() { return inFlight.get(); }
+    public long getRejected() { return rejected.sum(); }
+    public long getBackoffs() { return backoffs.sum(); }
+    public long getLatencyTargetMs() { return TimeUnit.NANOSECONDS.toMillis(latencyTargetNanos); }
+}
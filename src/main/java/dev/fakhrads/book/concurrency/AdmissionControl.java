@@ -0,0 +1,104 @@
+package dev.fakhrads.book.concurrency;
+
+import dev.fakhrads.book.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// One AdaptiveLimiter per operation class (read, write) in front of BookService; see AdmissionControlPostProcessor
+// for which calls are limited. A refused call fails fast with 503 + Retry-After, and so does a call that reached the
+// database but timed out on the pool, instead of surfacing as a generic 500 after the full connection timeout.
+@Component
+public class AdmissionControl {
+
+    public static final String READ = "read";
+    public static final String WRITE = "write";
+
+    private final boolean enabled;
+    private final long retryAfterSeconds;
+    private final Map<String, AdaptiveLimiter> limiters = new LinkedHashMap<>();
+
+    public AdmissionControl(
+            MeterRegistry registry,
+            @Value("${book.admission.enabled:true}") boolean enabled,
+            @Value("${book.admission.initial-limit:20}") int initialLimit,
+            @Value("${book.admission.min-limit:2}") int minLimit,
+            @Value("${book.admission.max-limit:200}") int maxLimit,
+            @Value("${book.admission.backoff-ratio:0.9}") double backoffRatio,
+            @Value("${book.admission.read.latency-target-ms:250}") long readLatencyTargetMs,
+            @Value("${book.admission.write.latency-target-ms:500}") long writeLatencyTargetMs,
+            @Value("${book.admission.retry-after-seconds:1}") long retryAfterSeconds
+    ) {
+        this.enabled = enabled;
+        this.retryAfterSeconds = retryAfterSeconds;
+        limiters.put(READ, new AdaptiveLimiter(initialLimit, minLimit, maxLimit, backoffRatio, readLatencyTargetMs));
+        limiters.put(WRITE, new AdaptiveLimiter(initialLimit, minLimit, maxLimit, backoffRatio, writeLatencyTargetMs));
+
+        limiters.forEach((operation, limiter) -> {
+            Gauge.builder("book.admission.limit", limiter, AdaptiveLimiter::getLimit)
+                    .tag("operation", operation)
+                    .description("Current adaptive concurrency limit")
+                    .register(registry);
+            Gauge.builder("book.admission.inflight", limiter, AdaptiveLimiter::getInFlight)
+                    .tag("operation", operation)
+                    .register(registry);
+            FunctionCounter.builder("book.admission.rejected", limiter, AdaptiveLimiter::getRejected)
+                    .tag("operation", operation)
+                    .description("Calls refused with 503 because the limit was reached")
+                    .register(registry);
+            FunctionCounter.builder("book.admission.backoffs", limiter, AdaptiveLimiter::getBackoffs)
+                    .tag("operation", operation)
+                    .description("Times the limit was cut after slow or timed-out calls")
+                    .register(registry);
+        });
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Map<String, AdaptiveLimiter> getLimiters() {
+        return limiters;
+    }
+
+    Object invoke(String operation, MethodInvocation invocation) throws Throwable {
+        AdaptiveLimiter limiter = limiters.get(operation);
+        if (!limiter.tryAcquire()) {
+            throw new ServiceUnavailableException("Server is busy (" + operation + " limit " + limiter.getLimit() + "), retry later",
+                    retryAfterSeconds);
+        }
+        long started = System.nanoTime();
+        boolean overloaded = false;
+        try {
+            return invocation.proceed();
+        } catch (Throwable ex) {
+            overloaded = overloaded(ex);
+            if (overloaded) throw new ServiceUnavailableException("Database is overloaded, retry later", retryAfterSeconds, ex);
+            throw ex;
+        } finally {
+            limiter.release(System.nanoTime() - started, overloaded);
+        }
+    }
+
+    private static boolean overloaded(Throwable ex) {
+        for (Throwable t = ex; t != null; t = t.getCause()) {
+            if (t instanceof CannotCreateTransactionException
+                    || t instanceof QueryTimeoutException
+                    || t instanceof SQLTransientConnectionException
+                    || t instanceof SQLTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
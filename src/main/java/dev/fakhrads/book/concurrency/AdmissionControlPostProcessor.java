@@ -0,0 +1,74 @@
+package dev.fakhrads.book.concurrency;
+
+import dev.fakhrads.book.service.BookService;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.AbstractAdvisingBeanPostProcessor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+
+// Puts AdmissionControl in front of the BookService methods that hit the database on a request thread. suggest is
+// served from memory and exportAll is a long-running stream, so neither is limited; calls from background workers
+// (async ingest) are not limited either, they have their own bounded concurrency.
+@Component
+public class AdmissionControlPostProcessor extends AbstractAdvisingBeanPostProcessor {
+
+    private static final Map<String, String> OPERATIONS = Map.ofEntries(
+            Map.entry("findPage", AdmissionControl.READ),
+            Map.entry("findPageVersionTag", AdmissionControl.READ),
+            Map.entry("search", AdmissionControl.READ),
+            Map.entry("findById", AdmissionControl.READ),
+            Map.entry("findByIsbn", AdmissionControl.READ),
+            Map.entry("findByIds", AdmissionControl.READ),
+            Map.entry("findVersion", AdmissionControl.READ),
+            Map.entry("create", AdmissionControl.WRITE),
+            Map.entry("createBulk", AdmissionControl.WRITE),
+            Map.entry("update", AdmissionControl.WRITE),
+            Map.entry("patch", AdmissionControl.WRITE),
+            Map.entry("delete", AdmissionControl.WRITE)
+    );
+
+    public AdmissionControlPostProcessor(ObjectProvider<AdmissionControl> admission) {
+        setBeforeExistingAdvisors(true);
+        setProxyTargetClass(true);
+        StaticMethodMatcherPointcut limited = new StaticMethodMatcherPointcut() {
+            @Override
+            public boolean matches(Method method, Class<?> targetClass) {
+                return BookService.class.isAssignableFrom(targetClass) && OPERATIONS.containsKey(method.getName());
+            }
+        };
+        this.advisor = new DefaultPointcutAdvisor(limited, new AdmissionInterceptor(admission));
+    }
+
+    private static final class AdmissionInterceptor implements MethodInterceptor {
+
+        private final ObjectProvider<AdmissionControl> provider;
+        private volatile AdmissionControl admission;
+
+        AdmissionInterceptor(ObjectProvider<AdmissionControl> provider) {
+            this.provider = provider;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            AdmissionControl a = admission();
+            if (a == null || !a.isEnabled() || RequestContextHolder.getRequestAttributes() == null) {
+                return invocation.proceed();
+            }
+            return a.invoke(OPERATIONS.get(invocation.getMethod().getName()), invocation);
+        }
+
+        // resolved on first use: post-processors are created before regular beans
+        private AdmissionControl admission() {
+            AdmissionControl a = admission;
+            if (a == null) admission = a = provider.getIfAvailable();
+            return a;
+        }
+    }
+}
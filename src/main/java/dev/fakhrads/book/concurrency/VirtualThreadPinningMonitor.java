@@ -0,0 +1,115 @@
+package dev.fakhrads.book.concurrency;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+// On Java 21 a virtual thread that blocks inside a synchronized block (or a native frame) keeps its carrier
+// thread; enough of those at once starve every other virtual thread. JFR reports each such park as
+// jdk.VirtualThreadPinned, which is streamed here: every distinct call site is logged once with its stack and
+// counted, so the offending frame in the JDBC path shows up without attaching a profiler.
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+    private static final String EVENT = "jdk.VirtualThreadPinned";
+    private static final String APP_PACKAGE = "dev.fakhrads.";
+    private static final String OWN_PACKAGE = "dev.fakhrads.book.concurrency.";
+
+    private final long thresholdMs;
+    private final int stackDepth;
+    private final LongAdder events = new LongAdder();
+    private final Map<String, LongAdder> sites = new ConcurrentHashMap<>();
+    private volatile RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(
+            @Value("${book.virtual-threads.pinned-threshold-ms:20}") long thresholdMs,
+            @Value("${book.virtual-threads.pinned-stack-depth:40}") int stackDepth
+    ) {
+        this.thresholdMs = thresholdMs;
+        this.stackDepth = stackDepth;
+    }
+
+    @Override
+    public void start() {
+        RecordingStream rs = new RecordingStream();
+        rs.enable(EVENT).withThreshold(Duration.ofMillis(thresholdMs)).withStackTrace();
+        rs.onEvent(EVENT, this::onPinned);
+        rs.startAsync();
+        stream = rs;
+        log.info("Virtual thread pinning monitor started (threshold={}ms)", thresholdMs);
+    }
+
+    @Override
+    public void stop() {
+        RecordingStream rs = stream;
+        stream = null;
+        if (rs != null) rs.close();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return stream != null;
+    }
+
+    public long getEvents() {
+        return events.sum();
+    }
+
+    public Map<String, Long> getSites() {
+        return sites.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()))
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().sum(), (a, b) -> a, LinkedHashMap::new));
+    }
+
+    private void onPinned(RecordedEvent event) {
+        events.increment();
+        List<RecordedFrame> frames = event.getStackTrace() == null ? List.of() : event.getStackTrace().getFrames();
+        // the innermost non-JDK frame is where the thread blocked (usually the driver's socket read); the innermost
+        // application frame is the call that led there. Together they identify the site well enough to group on.
+        String site = firstFrame(frames, f -> !isJdk(f)) + " <- " + firstFrame(frames, f -> typeName(f).startsWith(APP_PACKAGE) && !typeName(f).startsWith(OWN_PACKAGE));
+        LongAdder count = sites.computeIfAbsent(site, k -> new LongAdder());
+        count.increment();
+        if (count.sum() == 1) {
+            log.warn("Virtual thread pinned for {}ms at {}\n\t{}", event.getDuration().toMillis(), site,
+                    frames.stream().filter(f -> !isJdk(f)).limit(stackDepth)
+                            .map(VirtualThreadPinningMonitor::describe).collect(Collectors.joining("\n\t")));
+        } else if (log.isDebugEnabled()) {
+            log.debug("Virtual thread pinned for {}ms at {}", event.getDuration().toMillis(), site);
+        }
+    }
+
+    private static String firstFrame(List<RecordedFrame> frames, Predicate<RecordedFrame> filter) {
+        return frames.stream().filter(RecordedFrame::isJavaFrame).filter(filter).findFirst()
+                .map(VirtualThreadPinningMonitor::describe).orElse("<none>");
+    }
+
+    private static boolean isJdk(RecordedFrame f) {
+        String type = typeName(f);
+        return type.startsWith("java.") || type.startsWith("jdk.") || type.startsWith("sun.");
+    }
+
+    private static String typeName(RecordedFrame f) {
+        return f.getMethod().getType().getName();
+    }
+
+    private static String describe(RecordedFrame f) {
+        return f.getMethod().getType().getName() + "." + f.getMethod().getName() + ":" + f.getLineNumber();
+    }
+}
@@ -2,10 +2,17 @@ package dev.fakhrads.book.config;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 
 @SpringBootApplication(scanBasePackages = "dev.fakhrads.book")
 public class AppConfig {
+
+    // enough for every bean instantiation step; feeds StartupReport and /actuator/startup
+    private static final int STARTUP_STEPS = 4096;
+
     public static void main(String[] args) {
-        SpringApplication.run(AppConfig.class, args);
+        SpringApplication app = new SpringApplication(AppConfig.class);
+        app.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS));
+        app.run(args);
     }
 }
@@ -2,17 +2,30 @@ package dev.fakhrads.book.config;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import dev.fakhrads.book.concurrency.DbPermitDataSource;
+import dev.fakhrads.book.entity.Book;
+import dev.fakhrads.book.metrics.StatementTimingDataSource;
+import dev.fakhrads.book.routing.ReplicaRoutingDataSource;
+import dev.fakhrads.book.shard.BookShards;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 @Configuration
@@ -52,37 +65,139 @@ public class DbConfig {
     @Value("${spring.datasource.hikari.validation-timeout:5000}")
     private long validationTimeout;
 
+    // -1 starts the pool without a connection (AOT/CDS training runs with no database); 1 fails fast as before
+    @Value("${spring.datasource.hikari.initialization-fail-timeout:1}")
+    private long initializationFailTimeout;
+
     @Value("${spring.datasource.hikari.leak-detection-threshold:0}")
     private long leakDetectionThreshold;
 
+    @Value("${spring.datasource.hikari.data-source-properties.reWriteBatchedInserts:true}")
+    private boolean reWriteBatchedInserts;
+
+    @Value("${book.db.permits.enabled:${spring.threads.virtual.enabled:false}}")
+    private boolean permitsEnabled;
+
+    @Value("${book.db.permits.acquire-timeout-ms:60000}")
+    private long permitAcquireTimeoutMs;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int jdbcBatchSize;
+
+    @Value("${book.db.replica.enabled:false}")
+    private boolean replicaEnabled;
+
+    @Value("${book.db.replica.url:}")
+    private String replicaUrl;
+
+    @Value("${book.db.replica.username:${spring.datasource.username}}")
+    private String replicaUsername;
+
+    @Value("${book.db.replica.password:${spring.datasource.password}}")
+    private String replicaPassword;
+
+    @Value("${book.db.replica.maximum-pool-size:10}")
+    private int replicaMaxPoolSize;
+
+    @Value("${book.db.replica.connection-timeout-ms:1000}")
+    private long replicaConnectionTimeout;
+
+    @Value("${book.db.replica.max-lag-ms:1000}")
+    private long replicaMaxLagMs;
+
+    @Value("${book.db.replica.lag-check-interval-ms:1000}")
+    private long replicaLagCheckIntervalMs;
+
+    @Value("${book.server-timing.enabled:true}")
+    private boolean serverTimingEnabled;
+
+    @Value("${book.metrics.hibernate-statistics:true}")
+    private boolean hibernateStatistics;
+
+    @Value("${book.db.jdbc-metadata-on-boot:true}")
+    private boolean jdbcMetadataOnBoot;
+
+    @Value("${book.shards.urls:}")
+    private List<String> shardUrls;
+
+    @Value("${book.shards.username:${spring.datasource.username}}")
+    private String shardUsername;
+
+    @Value("${book.shards.password:${spring.datasource.password}}")
+    private String shardPassword;
+
+    @Value("${book.shards.maximum-pool-size:10}")
+    private int shardMaxPoolSize;
+
+    @Value("${book.shards.scatter-timeout-ms:10000}")
+    private long shardScatterTimeoutMs;
+
+    @Bean(destroyMethod = "close")
+    public DataSource dataSource(ObjectProvider<MeterRegistry> meterRegistry) {
+        DataSource primary = gate(pool(poolName, url, username, password, maxPoolSize, connectionTimeout, meterRegistry), maxPoolSize);
+        if (!replicaEnabled) return primary;
+
+        // a short checkout timeout, so a dead replica costs reads about a second before they fall back to the primary
+        DataSource replica = gate(pool(poolName + "-replica", replicaUrl, replicaUsername, replicaPassword,
+                replicaMaxPoolSize, replicaConnectionTimeout, meterRegistry), replicaMaxPoolSize);
+        return new ReplicaRoutingDataSource(primary, replica, replicaMaxLagMs, replicaLagCheckIntervalMs);
+    }
+
+    // the books databases of sharded mode; the main data source above stays the directory (ISBN routing, outbox)
     @Bean(destroyMethod = "close")
-    public DataSource dataSource() {
+    @ConditionalOnProperty(name = "book.shards.enabled", havingValue = "true")
+    public BookShards bookShards(ObjectProvider<MeterRegistry> meterRegistry) {
+        List<DataSource> shards = new ArrayList<>(shardUrls.size());
+        for (int i = 0; i < shardUrls.size(); i++) {
+            shards.add(gate(pool(poolName + "-shard" + i, shardUrls.get(i).trim(), shardUsername, shardPassword,
+                    shardMaxPoolSize, connectionTimeout, meterRegistry), shardMaxPoolSize));
+        }
+        return new BookShards(shards, shardScatterTimeoutMs);
+    }
+
+    // permits, then statement timing outermost, so the permit wait counts as connection wait in Server-Timing
+    private DataSource gate(HikariDataSource pool, int size) {
+        DataSource gated = permitsEnabled ? new DbPermitDataSource(pool, size, permitAcquireTimeoutMs) : pool;
+        return serverTimingEnabled ? new StatementTimingDataSource(gated) : gated;
+    }
+
+    private HikariDataSource pool(String name, String jdbcUrl, String user, String pass, int maxSize, long checkoutTimeout,
+                                  ObjectProvider<MeterRegistry> meterRegistry) {
         HikariConfig cfg = new HikariConfig();
-        cfg.setJdbcUrl(url);
-        cfg.setUsername(username);
-        cfg.setPassword(password);
+        cfg.setJdbcUrl(jdbcUrl);
+        cfg.setUsername(user);
+        cfg.setPassword(pass);
         cfg.setDriverClassName(driverClassName);
 
-        cfg.setPoolName(poolName);
-        cfg.setMaximumPoolSize(maxPoolSize);
-        cfg.setMinimumIdle(minIdle);
-        cfg.setConnectionTimeout(connectionTimeout);
+        cfg.setPoolName(name);
+        cfg.setMaximumPoolSize(maxSize);
+        cfg.setMinimumIdle(Math.min(minIdle, maxSize));
+        cfg.setConnectionTimeout(checkoutTimeout);
         cfg.setIdleTimeout(idleTimeout);
         cfg.setMaxLifetime(maxLifetime);
         cfg.setValidationTimeout(validationTimeout);
+        cfg.setInitializationFailTimeout(initializationFailTimeout);
 
         if (leakDetectionThreshold > 0) {
             cfg.setLeakDetectionThreshold(leakDetectionThreshold);
         }
 
+        // lets pgjdbc collapse a JDBC insert batch into multi-row INSERT statements
+        cfg.addDataSourceProperty("reWriteBatchedInserts", String.valueOf(reWriteBatchedInserts));
+
+        // hikaricp.connections.* (active, idle, pending, acquire/usage timers); Boot's binder cannot attach it to a started pool
+        meterRegistry.ifAvailable(registry -> cfg.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+
         return new HikariDataSource(cfg);
     }
 
     @Bean
+    @DependsOn("flyway")
     public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
         LocalContainerEntityManagerFactoryBean emf = new LocalContainerEntityManagerFactoryBean();
         emf.setDataSource(dataSource);
-        emf.setPackagesToScan("dev.fakhrads.book.entity");
+        // listed rather than scanned: no classpath walk at startup, and AOT sees the same set at build time
+        emf.setManagedTypes(PersistenceManagedTypes.of(Book.class.getName()));
 
         HibernateJpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
         vendorAdapter.setGenerateDdl(false);
@@ -102,6 +217,12 @@ public class DbConfig {
     private Properties jpaProperties() {
         Properties props = new Properties();
         props.put("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect");
+        props.put("hibernate.jdbc.batch_size", String.valueOf(jdbcBatchSize));
+        props.put("hibernate.order_inserts", "true");
+        props.put("hibernate.order_updates", "true");
+        props.put("hibernate.generate_statistics", String.valueOf(hibernateStatistics));
+        // the dialect is fixed above, so boot does not need a connection to read JDBC metadata unless asked to
+        props.put("hibernate.boot.allow_jdbc_metadata_access", String.valueOf(jdbcMetadataOnBoot));
         return props;
     }
 }
@@ -2,19 +2,94 @@ package dev.fakhrads.book.config;
 
 import javax.sql.DataSource;
 
+import dev.fakhrads.book.shard.BookShards;
 import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.ValidateResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+import java.util.ArrayList;
+import java.util.List;
 
 @Configuration
 public class FlywayConfig {
 
-    @Bean(initMethod = "migrate")
+    private static final Logger log = LoggerFactory.getLogger(FlywayConfig.class);
+
+    // migrate: apply pending migrations before JPA starts (the instance that rolls a release out)
+    // validate: refuse to start against a schema that does not match the migrations on the classpath
+    // defer: start straight away and validate in the background once ready; a mismatch is logged, not fatal
+    // skip: trust the schema; scale-out replicas started after the migrating instance
+    private final String onStartup;
+    private final List<Flyway> deferred = new ArrayList<>();
+
+    public FlywayConfig(@Value("${book.flyway.on-startup:migrate}") String onStartup) {
+        this.onStartup = onStartup;
+    }
+
+    @Bean
     public Flyway flyway(DataSource dataSource) {
+        return apply(configure(dataSource), "main database");
+    }
+
+    // sharded mode: every books shard carries the same schema, so it goes through the same migrations and mode
+    @Bean
+    @ConditionalOnProperty(name = "book.shards.enabled", havingValue = "true")
+    public List<Flyway> shardFlyways(BookShards shards) {
+        List<Flyway> flyways = new ArrayList<>(shards.count());
+        for (int i = 0; i < shards.count(); i++) {
+            flyways.add(apply(configure(shards.shard(i)), "books shard " + i));
+        }
+        return flyways;
+    }
+
+    private static Flyway configure(DataSource dataSource) {
         return Flyway.configure()
                 .dataSource(dataSource)
                 .locations("classpath:db/migration")
                 .baselineOnMigrate(true)
                 .load();
     }
+
+    private Flyway apply(Flyway flyway, String target) {
+        switch (onStartup) {
+            case "migrate" -> flyway.migrate();
+            case "validate" -> flyway.validate();
+            case "defer" -> {
+                log.info("Flyway defer on startup: {} is validated once the application is ready", target);
+                deferred.add(flyway);
+            }
+            case "skip" -> log.info("Flyway skip on startup: {} is not checked before JPA starts", target);
+            default -> throw new IllegalArgumentException("book.flyway.on-startup must be migrate, validate, defer or skip: " + onStartup);
+        }
+        return flyway;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void validateDeferred() {
+        if (deferred.isEmpty()) return;
+        List<Flyway> flyways = List.copyOf(deferred);
+        Thread t = new Thread(() -> {
+            for (Flyway flyway : flyways) {
+                try {
+                    ValidateResult result = flyway.validateWithResult();
+                    if (result.validationSuccessful) {
+                        log.info("Deferred Flyway validation passed");
+                    } else {
+                        log.error("Deferred Flyway validation failed: {}", result.getAllErrorMessages());
+                    }
+                } catch (RuntimeException ex) {
+                    log.error("Deferred Flyway validation could not run", ex);
+                }
+            }
+        }, "flyway-validate");
+        t.setDaemon(true);
+        t.start();
+    }
 }
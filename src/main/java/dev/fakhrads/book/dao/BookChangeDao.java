@@ -0,0 +1,17 @@
+package dev.fakhrads.book.dao;
+
+import dev.fakhrads.book.vo.BookVoChange;
+import dev.fakhrads.book.vo.BookVoChangeType;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface BookChangeDao {
+    void append(BookVoChangeType type, long bookId, Long version);
+    void appendAll(BookVoChangeType type, List<Long> bookIds, List<Long> versions);
+    List<BookVoChange> findAfter(long afterId, int limit);
+    long findLastId();
+    long[] findSnapshotBounds();
+    Long findFirstId();
+    long[] deleteOlderThan(Instant cutoff, int limit);
+}
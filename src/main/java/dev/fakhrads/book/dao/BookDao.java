@@ -1,14 +1,29 @@
 package dev.fakhrads.book.dao;
 
 import dev.fakhrads.book.entity.Book;
+import dev.fakhrads.book.vo.BookVoResponse;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public interface BookDao {
     Book save(Book book);
-    Optional<Book> findById(Long id);
-    List<Book> findAll();
+    void saveAll(List<Book> books);
+    Set<String> findExistingIsbns(Collection<String> isbns);
+    Optional<BookVoResponse> findById(Long id);
+    Optional<BookVoResponse> findByIsbn(String isbn);
+    List<BookVoResponse> findAllById(Collection<Long> ids);
+    List<BookVoResponse> findPage(Long afterId, int limit);
+    List<long[]> findPageVersions(Long afterId, int limit);
+    Optional<Long> findVersionById(Long id);
+    long estimateCount();
+    List<BookVoResponse> search(String query, long offset, int limit);
+    Stream<BookVoResponse> streamAll(int fetchSize);
+    Optional<BookVoResponse> update(Long id, Long expectedVersion, Book values);
+    Optional<BookVoResponse> patch(Long id, Long expectedVersion, Book changes);
+    int delete(Long id, Long expectedVersion);
     boolean existsById(Long id);
-    void deleteById(Long id);
 }
@@ -0,0 +1,12 @@
+package dev.fakhrads.book.dao;
+
+import dev.fakhrads.book.entity.Book;
+import dev.fakhrads.book.vo.BookVoImportResponse;
+
+import java.util.Iterator;
+
+public interface BookImportDao {
+    void createStage();
+    long copyToStage(Iterator<Book> rows);
+    BookVoImportResponse mergeStage();
+}
@@ -0,0 +1,122 @@
+package dev.fakhrads.book.dao.impl;
+
+import dev.fakhrads.book.dao.BookChangeDao;
+import dev.fakhrads.book.vo.BookVoChange;
+import dev.fakhrads.book.vo.BookVoChangeType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+@Repository
+public class BookChangeDaoImpl implements BookChangeDao {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    // the transaction id comes from the FROM clause, so it is assigned before the id default draws from the sequence;
+    // BookChangeFeed depends on that order to tell a pending writer from a rolled back one
+    @Override
+    public void append(BookVoChangeType type, long bookId, Long version) {
+        em.unwrap(Session.class).doWork(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "insert into book_changes (xid, book_id, op, version) "
+                            + "select x.xid, ?, ?, ? from pg_current_xact_id() as x(xid)")) {
+                ps.setLong(1, bookId);
+                ps.setString(2, type.name());
+                if (version == null) ps.setNull(3, Types.BIGINT); else ps.setLong(3, version);
+                ps.executeUpdate();
+            }
+        });
+    }
+
+    // one statement per batch: the arrays are unnested server-side instead of a JDBC batch of single-row inserts
+    @Override
+    public void appendAll(BookVoChangeType type, List<Long> bookIds, List<Long> versions) {
+        if (bookIds.isEmpty()) return;
+        em.unwrap(Session.class).doWork(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "insert into book_changes (xid, book_id, op, version) "
+                            + "select x.xid, t.b, ?, t.v from pg_current_xact_id() as x(xid), unnest(?::bigint[], ?::bigint[]) as t(b, v)")) {
+                ps.setString(1, type.name());
+                ps.setArray(2, conn.createArrayOf("bigint", bookIds.toArray()));
+                ps.setArray(3, conn.createArrayOf("bigint", versions.toArray()));
+                ps.executeUpdate();
+            }
+        });
+    }
+
+    @Override
+    public List<BookVoChange> findAfter(long afterId, int limit) {
+        return em.unwrap(Session.class).doReturningWork(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "select id, book_id, op, version, changed_at from book_changes where id > ? order by id limit ?")) {
+                ps.setLong(1, afterId);
+                ps.setInt(2, limit);
+                try (ResultSet rs = ps.executeQuery()) {
+                    List<BookVoChange> rows = new ArrayList<>(limit);
+                    while (rs.next()) {
+                        rows.add(new BookVoChange(
+                                rs.getLong("id"),
+                                rs.getLong("book_id"),
+                                BookVoChangeType.valueOf(rs.getString("op")),
+                                rs.getObject("version", Long.class),
+                                rs.getTimestamp("changed_at").toInstant()));
+                    }
+                    return rows;
+                }
+            }
+        });
+    }
+
+    // the newest id handed out by the sequence, committed or not
+    @Override
+    public long findLastId() {
+        Object last = em.createNativeQuery(
+                        "select case when is_called then last_value else last_value - 1 end from book_changes_id_seq")
+                .getSingleResult();
+        return ((Number) last).longValue();
+    }
+
+    // {xmin, xmax} of a fresh snapshot: every transaction id below xmin has ended, every one from xmax on is newer
+    @Override
+    public long[] findSnapshotBounds() {
+        Object[] bounds = (Object[]) em.createNativeQuery("select pg_snapshot_xmin(s)::text::bigint, pg_snapshot_xmax(s)::text::bigint "
+                        + "from pg_current_snapshot() as s")
+                .getSingleResult();
+        return new long[]{((Number) bounds[0]).longValue(), ((Number) bounds[1]).longValue()};
+    }
+
+    @Override
+    public Long findFirstId() {
+        Object first = em.createNativeQuery("select min(id) from book_changes").getSingleResult();
+        return first == null ? null : ((Number) first).longValue();
+    }
+
+    // looks at the `limit` oldest rows only (a short primary key scan, since ids grow with time) and deletes the
+    // expired ones among them; returns {deleted, highest deleted id}
+    @Override
+    public long[] deleteOlderThan(Instant cutoff, int limit) {
+        return em.unwrap(Session.class).doReturningWork(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "with head as (select id, changed_at from book_changes order by id limit ?), "
+                            + "d as (delete from book_changes where id in (select id from head where changed_at < ?) returning id) "
+                            + "select count(*), coalesce(max(id), 0) from d")) {
+                ps.setInt(1, limit);
+                ps.setTimestamp(2, Timestamp.from(cutoff));
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    return new long[]{rs.getLong(1), rs.getLong(2)};
+                }
+            }
+        });
+    }
+}
@@ -2,19 +2,41 @@ package dev.fakhrads.book.dao.impl;
 
 import dev.fakhrads.book.dao.BookDao;
 import dev.fakhrads.book.entity.Book;
+import dev.fakhrads.book.vo.BookVoResponse;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
+// the single-database BookDao; ShardedBookDao takes over when book.shards.enabled=true
 @Repository
+@ConditionalOnProperty(name = "book.shards.enabled", havingValue = "false", matchIfMissing = true)
 public class BookDaoImpl implements BookDao {
 
+    private static final String BOOK_COLUMNS = "id, title, author, isbn, published_date, version";
+
     @PersistenceContext
     private EntityManager em;
 
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
     @Override
     public Book save(Book book) {
         if (book.getId() == null) {
@@ -25,13 +47,113 @@ public class BookDaoImpl implements BookDao {
     }
 
     @Override
-    public Optional<Book> findById(Long id) {
-        return Optional.ofNullable(em.find(Book.class, id));
+    public void saveAll(List<Book> books) {
+        for (int i = 0; i < books.size(); i++) {
+            em.persist(books.get(i));
+            if ((i + 1) % batchSize == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Override
+    public Set<String> findExistingIsbns(Collection<String> isbns) {
+        if (isbns.isEmpty()) return Set.of();
+        return new HashSet<>(em.createQuery("select b.isbn from Book b where b.isbn in :isbns", String.class)
+                .setParameter("isbns", isbns)
+                .getResultList());
+    }
+
+    // reads map rows straight into BookVoResponse over the Session's JDBC connection: no managed entity, no
+    // persistence-context entry and no copy in the service. See ReadPathBenchmark for the numbers against em.find
+    // and JPQL constructor projections.
+    @Override
+    public Optional<BookVoResponse> findById(Long id) {
+        return queryRows("select " + BOOK_COLUMNS + " from books where id = ?", 1, ps -> ps.setLong(1, id))
+                .stream()
+                .findFirst();
+    }
+
+    @Override
+    public Optional<BookVoResponse> findByIsbn(String isbn) {
+        return queryRows("select " + BOOK_COLUMNS + " from books where isbn = ?", 1, ps -> ps.setString(1, isbn))
+                .stream()
+                .findFirst();
+    }
+
+    // one array parameter instead of an IN list: the statement text, and so its cached plan, is the same for any
+    // number of ids. Rows come back in no particular order.
+    @Override
+    public List<BookVoResponse> findAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) return List.of();
+        return queryRows("select " + BOOK_COLUMNS + " from books where id = any (?)", ids.size(),
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids.toArray())));
+    }
+
+    @Override
+    public List<BookVoResponse> findPage(Long afterId, int limit) {
+        return queryRows("select " + BOOK_COLUMNS + " from books where id > ? order by id limit ?", limit, ps -> {
+            ps.setLong(1, afterId == null ? 0L : afterId);
+            ps.setInt(2, limit);
+        });
+    }
+
+    @Override
+    public List<long[]> findPageVersions(Long afterId, int limit) {
+        return em.createQuery("select b.id, b.version from Book b where b.id > :afterId order by b.id asc", Object[].class)
+                .setParameter("afterId", afterId == null ? 0L : afterId)
+                .setMaxResults(limit)
+                .getResultStream()
+                .map(row -> new long[]{(Long) row[0], (Long) row[1]})
+                .toList();
+    }
+
+    @Override
+    public Optional<Long> findVersionById(Long id) {
+        return em.createQuery("select b.version from Book b where b.id = :id", Long.class)
+                .setParameter("id", id)
+                .getResultStream()
+                .findFirst();
+    }
+
+    @Override
+    public long estimateCount() {
+        // planner statistics instead of count(*): stale by up to one autovacuum/analyze cycle, but O(1)
+        Object live = em.createNativeQuery(
+                        "select n_live_tup from pg_stat_user_tables where relid = 'books'::regclass")
+                .getSingleResult();
+        return live == null ? 0L : ((Number) live).longValue();
     }
 
+    // title matches carry weight A and author matches weight B in search_vector, so ts_rank puts title hits first;
+    // id breaks ties to keep the order stable between pages
     @Override
-    public List<Book> findAll() {
-        return em.createQuery("select b from Book b order by b.id asc", Book.class).getResultList();
+    public List<BookVoResponse> search(String query, long offset, int limit) {
+        String sql = "select " + BOOK_COLUMNS
+                + " from books, websearch_to_tsquery('simple', ?) q"
+                + " where search_vector @@ q"
+                + " order by ts_rank(search_vector, q) desc, id"
+                + " offset ? limit ?";
+        return queryRows(sql, limit, ps -> {
+            ps.setString(1, query);
+            ps.setLong(2, offset);
+            ps.setInt(3, limit);
+        });
+    }
+
+    @Override
+    public Stream<BookVoResponse> streamAll(int fetchSize) {
+        // constructor projection keeps rows out of the persistence context; with a fetch size inside a
+        // transaction pgjdbc reads through a server-side cursor instead of buffering the whole result
+        return em.createQuery(
+                        "select new dev.fakhrads.book.vo.BookVoResponse(b.id, b.title, b.author, b.isbn, b.publishedDate) "
+                                + "from Book b order by b.id asc", BookVoResponse.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
     }
 
     @Override
@@ -43,10 +165,105 @@ public class BookDaoImpl implements BookDao {
     }
 
     @Override
-    public void deleteById(Long id) {
-        Book book = em.find(Book.class, id);
-        if (book != null) {
-            em.remove(book);
+    public Optional<BookVoResponse> update(Long id, Long expectedVersion, Book values) {
+        return updateReturning(id, expectedVersion, values, true);
+    }
+
+    @Override
+    public Optional<BookVoResponse> patch(Long id, Long expectedVersion, Book changes) {
+        return updateReturning(id, expectedVersion, changes, false);
+    }
+
+    @Override
+    public int delete(Long id, Long expectedVersion) {
+        String jpql = expectedVersion == null
+                ? "delete from Book b where b.id = :id"
+                : "delete from Book b where b.id = :id and b.version = :version";
+        var query = em.createQuery(jpql).setParameter("id", id);
+        if (expectedVersion != null) query.setParameter("version", expectedVersion);
+        return query.executeUpdate();
+    }
+
+    // one UPDATE ... RETURNING round trip: no prior SELECT, no entity in the persistence context, and the
+    // version predicate makes the write conditional without holding a row lock across a read
+    private Optional<BookVoResponse> updateReturning(Long id, Long expectedVersion, Book values, boolean replace) {
+        StringBuilder sql = new StringBuilder("update books set ");
+        List<Object> params = new ArrayList<>();
+        if (replace || values.getTitle() != null) {
+            sql.append("title = ?, ");
+            params.add(values.getTitle());
+        }
+        if (replace || values.getAuthor() != null) {
+            sql.append("author = ?, ");
+            params.add(values.getAuthor());
         }
+        if (replace || values.getIsbn() != null) {
+            sql.append("isbn = ?, ");
+            params.add(values.getIsbn());
+        }
+        if (replace || values.getPublishedDate() != null) {
+            sql.append("published_date = ?, ");
+            params.add(values.getPublishedDate());
+        }
+        sql.append("version = version + 1 where id = ?");
+        params.add(id);
+        if (expectedVersion != null) {
+            sql.append(" and version = ?");
+            params.add(expectedVersion);
+        }
+        sql.append(" returning ").append(BOOK_COLUMNS);
+
+        return em.unwrap(Session.class).doReturningWork(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+                for (int i = 0; i < params.size(); i++) {
+                    bind(ps, i + 1, params.get(i));
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? Optional.of(readRow(rs)) : Optional.empty();
+                }
+            }
+        });
+    }
+
+    private List<BookVoResponse> queryRows(String sql, int expectedRows, StatementBinder binder) {
+        return em.unwrap(Session.class).doReturningWork(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                binder.bind(ps);
+                try (ResultSet rs = ps.executeQuery()) {
+                    List<BookVoResponse> rows = new ArrayList<>(expectedRows);
+                    while (rs.next()) {
+                        rows.add(readRow(rs));
+                    }
+                    return rows;
+                }
+            }
+        });
+    }
+
+    private static void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.DATE);
+        } else if (value instanceof LocalDate date) {
+            ps.setObject(index, date);
+        } else if (value instanceof Long number) {
+            ps.setLong(index, number);
+        } else {
+            ps.setString(index, (String) value);
+        }
+    }
+
+    private static BookVoResponse readRow(ResultSet rs) throws SQLException {
+        return new BookVoResponse(
+                rs.getLong("id"),
+                rs.getString("title"),
+                rs.getString("author"),
+                rs.getString("isbn"),
+                rs.getObject("published_date", LocalDate.class),
+                rs.getLong("version"));
+    }
+
+    @FunctionalInterface
+    private interface StatementBinder {
+        void bind(PreparedStatement ps) throws SQLException;
     }
 }
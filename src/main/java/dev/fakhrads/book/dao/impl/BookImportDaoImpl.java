@@ -0,0 +1,133 @@
+package dev.fakhrads.book.dao.impl;
+
+import dev.fakhrads.book.dao.BookImportDao;
+import dev.fakhrads.book.entity.Book;
+import dev.fakhrads.book.vo.BookVoImportResponse;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.stereotype.Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Iterator;
+
+@Repository
+public class BookImportDaoImpl implements BookImportDao {
+
+    private static final int COPY_BUFFER_CHARS = 64 * 1024;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public void createStage() {
+        // seq preserves file order so the last row wins when an ISBN repeats inside one upload
+        em.createNativeQuery("create temporary table books_import_stage ("
+                        + "seq bigint generated always as identity, "
+                        + "title varchar(200) not null, "
+                        + "author varchar(150) not null, "
+                        + "isbn varchar(50) not null, "
+                        + "published_date date"
+                        + ") on commit drop")
+                .executeUpdate();
+    }
+
+    @Override
+    public long copyToStage(Iterator<Book> rows) {
+        return em.unwrap(Session.class).doReturningWork(conn -> {
+            CopyIn copy = conn.unwrap(PGConnection.class).getCopyAPI().copyIn(
+                    "copy books_import_stage (title, author, isbn, published_date) from stdin with (format csv)");
+            try {
+                StringBuilder buf = new StringBuilder(COPY_BUFFER_CHARS + 1024);
+                long count = 0;
+                while (rows.hasNext()) {
+                    appendRow(buf, rows.next());
+                    count++;
+                    if (buf.length() >= COPY_BUFFER_CHARS) {
+                        write(copy, buf);
+                    }
+                }
+                write(copy, buf);
+                copy.endCopy();
+                return count;
+            } finally {
+                if (copy.isActive()) {
+                    copy.cancelCopy();
+                }
+            }
+        });
+    }
+
+    @Override
+    public BookVoImportResponse mergeStage() {
+        Object[] counts = (Object[]) em.createNativeQuery("""
+                        with src as (
+                            select distinct on (isbn) title, author, isbn, published_date
+                            from books_import_stage
+                            order by isbn, seq desc
+                        ), merged as (
+                            insert into books (title, author, isbn, published_date)
+                            select title, author, isbn, published_date from src
+                            on conflict on constraint uk_books_isbn do update
+                                set title = excluded.title,
+                                    author = excluded.author,
+                                    published_date = excluded.published_date,
+                                    version = books.version + 1
+                                where (books.title, books.author, books.published_date)
+                                    is distinct from (excluded.title, excluded.author, excluded.published_date)
+                            returning id, version, (xmax = 0) as inserted
+                        ), changes as (
+                            insert into book_changes (xid, book_id, op, version)
+                            select pg_current_xact_id(), id, case when inserted then 'CREATE' else 'UPDATE' end, version from merged
+                        )
+                        select (select count(*) from books_import_stage),
+                               (select count(*) from src),
+                               count(*) filter (where inserted),
+                               count(*) filter (where not inserted)
+                        from merged
+                        """)
+                .getSingleResult();
+
+        long staged = ((Number) counts[0]).longValue();
+        long distinct = ((Number) counts[1]).longValue();
+        BookVoImportResponse result = new BookVoImportResponse();
+        result.setInserted(((Number) counts[2]).longValue());
+        result.setUpdated(((Number) counts[3]).longValue());
+        result.setUnchanged(distinct - result.getInserted() - result.getUpdated());
+        result.setDuplicates(staged - distinct);
+        return result;
+    }
+
+    private static void appendRow(StringBuilder buf, Book book) {
+        appendQuoted(buf, book.getTitle());
+        buf.append(',');
+        appendQuoted(buf, book.getAuthor());
+        buf.append(',');
+        appendQuoted(buf, book.getIsbn());
+        buf.append(',');
+        if (book.getPublishedDate() != null) {
+            buf.append(book.getPublishedDate());
+        }
+        buf.append('\n');
+    }
+
+    private static void appendQuoted(StringBuilder buf, String value) {
+        buf.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') buf.append('"');
+            buf.append(c);
+        }
+        buf.append('"');
+    }
+
+    private static void write(CopyIn copy, StringBuilder buf) throws SQLException {
+        if (buf.isEmpty()) return;
+        byte[] bytes = buf.toString().getBytes(StandardCharsets.UTF_8);
+        copy.writeToCopy(bytes, 0, bytes.length);
+        buf.setLength(0);
+    }
+}
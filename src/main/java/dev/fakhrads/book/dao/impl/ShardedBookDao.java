@@ -0,0 +1,590 @@
+package dev.fakhrads.book.dao.impl;
+
+import dev.fakhrads.book.dao.BookDao;
+import dev.fakhrads.book.entity.Book;
+import dev.fakhrads.book.shard.BookShards;
+import dev.fakhrads.book.shard.ShardMerge;
+import dev.fakhrads.book.vo.BookVoResponse;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.core.Ordered;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.support.SQLExceptionTranslator;
+import org.springframework.jdbc.support.SQLStateSQLExceptionTranslator;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// BookDao over BookShards. Rows live on the shard encoded in their id; the main database keeps the ISBN routing
+// table (book_isbn_shards) and the change outbox, both written in the service transaction. Shard writes go through
+// one connection per shard bound to that transaction. The main database commits first and the shards right after it,
+// so a failure anywhere before that rolls everything back. That is best effort rather than two-phase commit: a shard
+// commit that fails (or a crash) after the main database committed leaves a routing row and a change event without
+// their book change. A new book then reads as not found while its ISBN stays taken. Between the two commits a change
+// feed client can see an event before its book change is readable.
+// Lists and searches ask every shard in parallel for its first rows in the final order and merge them.
+@Repository
+@ConditionalOnProperty(name = "book.shards.enabled", havingValue = "true")
+@DependsOn("shardFlyways")
+public class ShardedBookDao implements BookDao {
+
+    private static final String BOOK_COLUMNS = "id, title, author, isbn, published_date, version";
+    private static final Logger log = LoggerFactory.getLogger(ShardedBookDao.class);
+    private static final Comparator<BookVoResponse> BY_ID = Comparator.comparing(BookVoResponse::getId);
+    private static final Comparator<Ranked> BY_RANK = Comparator.comparingDouble(Ranked::rank).reversed()
+            .thenComparing(r -> r.book().getId());
+
+    private final BookShards shards;
+    private final SQLExceptionTranslator translator = new SQLStateSQLExceptionTranslator();
+
+    @PersistenceContext
+    private EntityManager em;
+
+    public ShardedBookDao(BookShards shards) {
+        this.shards = shards;
+    }
+
+    @Override
+    public Book save(Book book) {
+        if (book.getId() != null) {
+            throw new IllegalArgumentException("Sharded save only inserts new books; book " + book.getId() + " already has an id");
+        }
+        saveAll(List.of(book));
+        return book;
+    }
+
+    // routing rows first: a duplicate ISBN fails on the main database before any shard is touched
+    @Override
+    public void saveAll(List<Book> books) {
+        if (books.isEmpty()) return;
+        Map<Integer, List<Book>> byShard = new HashMap<>();
+        for (Book book : books) {
+            byShard.computeIfAbsent(shards.place(), s -> new ArrayList<>()).add(book);
+        }
+        byShard.forEach((shard, placed) -> onShard(shard, true, conn -> {
+            try (PreparedStatement ps = conn.prepareStatement("select nextval('books_id_seq') from generate_series(1, ?)")) {
+                ps.setInt(1, placed.size());
+                try (ResultSet rs = ps.executeQuery()) {
+                    for (Book book : placed) {
+                        rs.next();
+                        book.setId(BookShards.encode(rs.getLong(1), shard));
+                    }
+                }
+            }
+            return null;
+        }));
+
+        onDirectory(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement("insert into book_isbn_shards (isbn, book_id) values (?, ?)")) {
+                for (Book book : books) {
+                    ps.setString(1, book.getIsbn());
+                    ps.setLong(2, book.getId());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            return null;
+        });
+
+        byShard.forEach((shard, placed) -> onShard(shard, true, conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "insert into books (id, title, author, isbn, published_date, version) values (?, ?, ?, ?, ?, 0)")) {
+                for (Book book : placed) {
+                    ps.setLong(1, book.getId());
+                    ps.setString(2, book.getTitle());
+                    ps.setString(3, book.getAuthor());
+                    ps.setString(4, book.getIsbn());
+                    bind(ps, 5, book.getPublishedDate());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            return null;
+        }));
+        books.forEach(book -> book.setVersion(0L));
+    }
+
+    @Override
+    public Set<String> findExistingIsbns(Collection<String> isbns) {
+        if (isbns.isEmpty()) return Set.of();
+        return onDirectory(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement("select isbn from book_isbn_shards where isbn = any (?)")) {
+                ps.setArray(1, conn.createArrayOf("varchar", isbns.toArray()));
+                try (ResultSet rs = ps.executeQuery()) {
+                    Set<String> existing = new HashSet<>();
+                    while (rs.next()) existing.add(rs.getString(1));
+                    return existing;
+                }
+            }
+        });
+    }
+
+    @Override
+    public Optional<BookVoResponse> findById(Long id) {
+        int shard = shards.shardOf(id);
+        if (shard < 0) return Optional.empty();
+        return queryRows(shard, "select " + BOOK_COLUMNS + " from books where id = ?", ps -> ps.setLong(1, id))
+                .stream()
+                .findFirst();
+    }
+
+    @Override
+    public Optional<BookVoResponse> findByIsbn(String isbn) {
+        Optional<Long> id = onDirectory(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement("select book_id from book_isbn_shards where isbn = ?")) {
+                ps.setString(1, isbn);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? Optional.of(rs.getLong(1)) : Optional.<Long>empty();
+                }
+            }
+        });
+        return id.flatMap(this::findById);
+    }
+
+    // one array query per shard that holds any of the ids, run in parallel
+    @Override
+    public List<BookVoResponse> findAllById(Collection<Long> ids) {
+        Map<Integer, List<Long>> byShard = new HashMap<>();
+        for (Long id : ids) {
+            int shard = shards.shardOf(id);
+            if (shard >= 0) byShard.computeIfAbsent(shard, s -> new ArrayList<>()).add(id);
+        }
+        if (byShard.isEmpty()) return List.of();
+        return shards.scatter((shard, ds) -> {
+            List<Long> local = byShard.get(shard);
+            if (local == null) return List.<BookVoResponse>of();
+            return queryRows(shard, "select " + BOOK_COLUMNS + " from books where id = any (?)",
+                    ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", local.toArray())));
+        }).stream().flatMap(List::stream).toList();
+    }
+
+    // ids are global, so each shard's first `limit` rows after the cursor contain the merged page
+    @Override
+    public List<BookVoResponse> findPage(Long afterId, int limit) {
+        long after = afterId == null ? 0L : afterId;
+        List<List<BookVoResponse>> pages = shards.scatter((shard, ds) -> queryRows(shard,
+                "select " + BOOK_COLUMNS + " from books where id > ? order by id limit ?", ps -> {
+                    ps.setLong(1, after);
+                    ps.setInt(2, limit);
+                }));
+        return ShardMerge.merge(pages, BY_ID, 0, limit);
+    }
+
+    @Override
+    public List<long[]> findPageVersions(Long afterId, int limit) {
+        long after = afterId == null ? 0L : afterId;
+        List<List<long[]>> pages = shards.scatter((shard, ds) -> onShard(shard, false, conn -> {
+            try (PreparedStatement ps = conn.prepareStatement("select id, version from books where id > ? order by id limit ?")) {
+                ps.setLong(1, after);
+                ps.setInt(2, limit);
+                try (ResultSet rs = ps.executeQuery()) {
+                    List<long[]> rows = new ArrayList<>(limit);
+                    while (rs.next()) rows.add(new long[]{rs.getLong(1), rs.getLong(2)});
+                    return rows;
+                }
+            }
+        }));
+        return ShardMerge.merge(pages, Comparator.comparingLong(row -> row[0]), 0, limit);
+    }
+
+    @Override
+    public Optional<Long> findVersionById(Long id) {
+        return findById(id).map(BookVoResponse::getVersion);
+    }
+
+    @Override
+    public long estimateCount() {
+        return shards.scatter((shard, ds) -> onShard(shard, false, conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "select n_live_tup from pg_stat_user_tables where relid = 'books'::regclass");
+                 ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0L;
+            }
+        })).stream().mapToLong(Long::longValue).sum();
+    }
+
+    // ts_rank only looks at the row itself, so ranks from different shards compare directly; every shard returns
+    // its top offset + limit and the merge skips the offset. Deep pages cost shards x (offset + limit) rows.
+    @Override
+    public List<BookVoResponse> search(String query, long offset, int limit) {
+        String sql = "select " + BOOK_COLUMNS + ", ts_rank(search_vector, q) as rank"
+                + " from books, websearch_to_tsquery('simple', ?) q"
+                + " where search_vector @@ q"
+                + " order by rank desc, id"
+                + " limit ?";
+        long top = offset + limit;
+        List<List<Ranked>> hits = shards.scatter((shard, ds) -> onShard(shard, false, conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setString(1, query);
+                ps.setLong(2, top);
+                try (ResultSet rs = ps.executeQuery()) {
+                    List<Ranked> rows = new ArrayList<>();
+                    while (rs.next()) rows.add(new Ranked(rs.getFloat("rank"), readRow(rs)));
+                    return rows;
+                }
+            }
+        }));
+        return ShardMerge.merge(hits, BY_RANK, offset, limit).stream().map(Ranked::book).toList();
+    }
+
+    // one server-side cursor per shard, merged by id as the caller consumes the stream; closing the stream closes
+    // the cursors and their connections
+    @Override
+    public Stream<BookVoResponse> streamAll(int fetchSize) {
+        List<Connection> connections = new ArrayList<>(shards.count());
+        List<Iterator<BookVoResponse>> cursors = new ArrayList<>(shards.count());
+        Runnable close = () -> connections.forEach(ShardedBookDao::closeQuietly);
+        try {
+            for (int shard = 0; shard < shards.count(); shard++) {
+                Connection conn = shards.shard(shard).getConnection();
+                connections.add(conn);
+                conn.setAutoCommit(false);
+                conn.setReadOnly(true);
+                PreparedStatement ps = conn.prepareStatement(
+                        "select id, title, author, isbn, published_date from books order by id");
+                ps.setFetchSize(fetchSize);
+                cursors.add(new Cursor(ps.executeQuery()));
+            }
+        } catch (SQLException ex) {
+            close.run();
+            throw translate("streamAll", ex);
+        } catch (RuntimeException ex) {
+            close.run();
+            throw ex;
+        }
+        Iterator<BookVoResponse> merged = ShardMerge.merge(cursors, BY_ID);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(close);
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return findById(id).isPresent();
+    }
+
+    @Override
+    public Optional<BookVoResponse> update(Long id, Long expectedVersion, Book values) {
+        return updateReturning(id, expectedVersion, values, true);
+    }
+
+    @Override
+    public Optional<BookVoResponse> patch(Long id, Long expectedVersion, Book changes) {
+        return updateReturning(id, expectedVersion, changes, false);
+    }
+
+    @Override
+    public int delete(Long id, Long expectedVersion) {
+        int shard = shards.shardOf(id);
+        if (shard < 0) return 0;
+        int deleted = onShard(shard, true, conn -> {
+            String sql = expectedVersion == null
+                    ? "delete from books where id = ?"
+                    : "delete from books where id = ? and version = ?";
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setLong(1, id);
+                if (expectedVersion != null) ps.setLong(2, expectedVersion);
+                return ps.executeUpdate();
+            }
+        });
+        if (deleted > 0) {
+            onDirectory(conn -> {
+                try (PreparedStatement ps = conn.prepareStatement("delete from book_isbn_shards where book_id = ?")) {
+                    ps.setLong(1, id);
+                    return ps.executeUpdate();
+                }
+            });
+        }
+        return deleted;
+    }
+
+    // the book changes first and returns its previous ISBN; the routing row only moves when the ISBN really changed,
+    // and a duplicate there throws and rolls the book change back with the rest of the transaction
+    private Optional<BookVoResponse> updateReturning(Long id, Long expectedVersion, Book values, boolean replace) {
+        int shard = shards.shardOf(id);
+        if (shard < 0) return Optional.empty();
+        String isbn = values.getIsbn();
+
+        StringBuilder sql = new StringBuilder();
+        List<Object> params = new ArrayList<>();
+        if (isbn != null) {
+            sql.append("with old as (select id, isbn from books where id = ? for update) ");
+            params.add(id);
+        }
+        sql.append("update books b set ");
+        if (replace || values.getTitle() != null) {
+            sql.append("title = ?, ");
+            params.add(values.getTitle());
+        }
+        if (replace || values.getAuthor() != null) {
+            sql.append("author = ?, ");
+            params.add(values.getAuthor());
+        }
+        if (replace || isbn != null) {
+            sql.append("isbn = ?, ");
+            params.add(isbn);
+        }
+        if (replace || values.getPublishedDate() != null) {
+            sql.append("published_date = ?, ");
+            params.add(values.getPublishedDate());
+        }
+        sql.append("version = b.version + 1");
+        sql.append(isbn != null ? " from old where b.id = old.id" : " where b.id = ?");
+        if (isbn == null) params.add(id);
+        if (expectedVersion != null) {
+            sql.append(" and b.version = ?");
+            params.add(expectedVersion);
+        }
+        sql.append(" returning b.id, b.title, b.author, b.isbn, b.published_date, b.version");
+        if (isbn != null) sql.append(", old.isbn as old_isbn");
+
+        Optional<Updated> updated = onShard(shard, true, conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+                for (int i = 0; i < params.size(); i++) {
+                    bind(ps, i + 1, params.get(i));
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) return Optional.empty();
+                    return Optional.of(new Updated(readRow(rs), isbn != null ? rs.getString("old_isbn") : null));
+                }
+            }
+        });
+        if (updated.isPresent() && isbn != null && !isbn.equals(updated.get().oldIsbn())) {
+            onDirectory(conn -> {
+                try (PreparedStatement ps = conn.prepareStatement("update book_isbn_shards set isbn = ? where book_id = ?")) {
+                    ps.setString(1, isbn);
+                    ps.setLong(2, id);
+                    return ps.executeUpdate();
+                }
+            });
+        }
+        return updated.map(Updated::book);
+    }
+
+    private List<BookVoResponse> queryRows(int shard, String sql, StatementBinder binder) {
+        return onShard(shard, false, conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                binder.bind(ps);
+                try (ResultSet rs = ps.executeQuery()) {
+                    List<BookVoResponse> rows = new ArrayList<>();
+                    while (rs.next()) rows.add(readRow(rs));
+                    return rows;
+                }
+            }
+        });
+    }
+
+    // the service transaction's connection to the main database
+    private <T> T onDirectory(ConnectionWork<T> work) {
+        return em.unwrap(Session.class).doReturningWork(conn -> {
+            try {
+                return work.run(conn);
+            } catch (SQLException ex) {
+                throw translate("book_isbn_shards", ex);
+            }
+        });
+    }
+
+    // writes, and reads that follow a write in the same transaction, use the shard connection bound to the current
+    // transaction; other reads take a pooled connection in autocommit mode
+    private <T> T onShard(int shard, boolean write, ConnectionWork<T> work) {
+        ShardTransaction tx = ShardTransaction.current(shards, write);
+        try {
+            if (tx != null && (write || tx.has(shard))) {
+                return work.run(tx.connection(shard));
+            }
+            try (Connection conn = shards.shard(shard).getConnection()) {
+                return work.run(conn);
+            }
+        } catch (SQLException ex) {
+            throw translate("books shard " + shard, ex);
+        }
+    }
+
+    private DataAccessException translate(String task, SQLException ex) {
+        DataAccessException translated = translator.translate(task, null, ex);
+        return translated != null ? translated : new DataAccessResourceFailureException(task + ": " + ex.getMessage(), ex);
+    }
+
+    private static void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.DATE);
+        } else if (value instanceof LocalDate date) {
+            ps.setObject(index, date);
+        } else if (value instanceof Long number) {
+            ps.setLong(index, number);
+        } else {
+            ps.setString(index, (String) value);
+        }
+    }
+
+    private static BookVoResponse readRow(ResultSet rs) throws SQLException {
+        return new BookVoResponse(
+                rs.getLong("id"),
+                rs.getString("title"),
+                rs.getString("author"),
+                rs.getString("isbn"),
+                rs.getObject("published_date", LocalDate.class),
+                rs.getLong("version"));
+    }
+
+    private static void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException ignored) {
+            // the pool discards a connection it cannot reset
+        }
+    }
+
+    private record Ranked(float rank, BookVoResponse book) {}
+
+    private record Updated(BookVoResponse book, String oldIsbn) {}
+
+    @FunctionalInterface
+    private interface StatementBinder {
+        void bind(PreparedStatement ps) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface ConnectionWork<T> {
+        T run(Connection conn) throws SQLException;
+    }
+
+    // streamAll rows: the export and the suggest index read no version, like BookDaoImpl.streamAll
+    private final class Cursor implements Iterator<BookVoResponse> {
+
+        private final ResultSet rs;
+        private Boolean hasNext;
+
+        Cursor(ResultSet rs) {
+            this.rs = rs;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (hasNext == null) {
+                try {
+                    hasNext = rs.next();
+                } catch (SQLException ex) {
+                    throw translate("streamAll", ex);
+                }
+            }
+            return hasNext;
+        }
+
+        @Override
+        public BookVoResponse next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            hasNext = null;
+            try {
+                return new BookVoResponse(rs.getLong("id"), rs.getString("title"), rs.getString("author"),
+                        rs.getString("isbn"), rs.getObject("published_date", LocalDate.class));
+            } catch (SQLException ex) {
+                throw translate("streamAll", ex);
+            }
+        }
+    }
+
+    // shard connections opened by writes in one Spring transaction. They commit in afterCommit, once the main
+    // database has; when it rolled back (or rejected the commit) afterCompletion rolls them back instead. Every shard
+    // is tried even if an earlier one fails, and the failure still reaches the caller. Ordered first, so other
+    // after-commit work already sees the shard rows.
+    private static final class ShardTransaction implements TransactionSynchronization {
+
+        private final BookShards shards;
+        private final Map<Integer, Connection> connections = new HashMap<>();
+
+        private ShardTransaction(BookShards shards) {
+            this.shards = shards;
+        }
+
+        static ShardTransaction current(BookShards shards, boolean create) {
+            if (!TransactionSynchronizationManager.isSynchronizationActive()) return null;
+            ShardTransaction tx = (ShardTransaction) TransactionSynchronizationManager.getResource(shards);
+            if (tx == null && create) {
+                tx = new ShardTransaction(shards);
+                TransactionSynchronizationManager.bindResource(shards, tx);
+                TransactionSynchronizationManager.registerSynchronization(tx);
+            }
+            return tx;
+        }
+
+        boolean has(int shard) {
+            return connections.containsKey(shard);
+        }
+
+        Connection connection(int shard) throws SQLException {
+            Connection conn = connections.get(shard);
+            if (conn == null) {
+                conn = shards.shard(shard).getConnection();
+                connections.put(shard, conn);
+                conn.setAutoCommit(false);
+            }
+            return conn;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+
+        @Override
+        public void afterCommit() {
+            DataAccessResourceFailureException failed = null;
+            for (Map.Entry<Integer, Connection> e : connections.entrySet()) {
+                try {
+                    e.getValue().commit();
+                } catch (SQLException ex) {
+                    log.error("Commit failed on books shard {} after the main database committed", e.getKey(), ex);
+                    if (failed == null) {
+                        failed = new DataAccessResourceFailureException("Commit failed on books shard " + e.getKey(), ex);
+                    }
+                }
+            }
+            if (failed != null) throw failed;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(shards);
+            for (Connection conn : connections.values()) {
+                try {
+                    // a no-op after afterCommit; undoes the shard writes when the transaction rolled back
+                    conn.rollback();
+                    conn.setAutoCommit(true);
+                } catch (SQLException ignored) {
+                    // closing below hands the connection back; the pool resets or evicts it
+                }
+                closeQuietly(conn);
+            }
+        }
+    }
+}
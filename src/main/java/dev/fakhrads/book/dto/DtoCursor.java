@@ -0,0 +1,51 @@
+package dev.fakhrads.book.dto;
+
+import dev.fakhrads.book.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// keyset cursors (the last id of GET /api/books) and offset cursors (search result position) carry different
+// prefixes, so a cursor handed to the wrong endpoint is rejected instead of read as the other kind of position
+public class DtoCursor {
+
+    private static final String KEYSET = "k:";
+    private static final String OFFSET = "o:";
+
+    private DtoCursor() {}
+
+    public static String encode(Long position) {
+        return encode(KEYSET, position);
+    }
+
+    public static Long decode(String cursor) {
+        return decode(KEYSET, cursor);
+    }
+
+    public static String encodeOffset(Long offset) {
+        return encode(OFFSET, offset);
+    }
+
+    public static Long decodeOffset(String cursor) {
+        return decode(OFFSET, cursor);
+    }
+
+    private static String encode(String prefix, Long position) {
+        if (position == null) return null;
+        byte[] raw = (prefix + position).getBytes(StandardCharsets.US_ASCII);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    private static Long decode(String prefix, String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            if (!raw.startsWith(prefix)) throw new BadRequestException("Invalid cursor");
+            long position = Long.parseLong(raw.substring(prefix.length()));
+            if (position < 0) throw new BadRequestException("Invalid cursor");
+            return position;
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+}
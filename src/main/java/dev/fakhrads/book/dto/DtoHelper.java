@@ -11,6 +11,13 @@ public class DtoHelper {
         return new DtoResponse<>(true, message, data, Instant.now(), path);
     }
 
+    public static <T> DtoResponse<T> page(String message, T data, String nextCursor, Long totalEstimate, String path) {
+        DtoResponse<T> res = new DtoResponse<>(true, message, data, Instant.now(), path);
+        res.setNextCursor(nextCursor);
+        res.setTotalEstimate(totalEstimate);
+        return res;
+    }
+
     public static <T> DtoResponse<T> fail(String message, T data, String path) {
         return new DtoResponse<>(false, message, data, Instant.now(), path);
     }
@@ -0,0 +1,70 @@
+package dev.fakhrads.book.dto;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+
+// Writes the DtoResponse envelope around an already-encoded data payload. The bytes match what the MVC JsonMapper
+// produces for DtoHelper.ok(...): same property order, ISO-8601 timestamp, and Jackson's string escaping (quote,
+// backslash, \b \t \n \f \r, other control characters as uppercase-hex escapes, everything else raw UTF-8).
+public class DtoJsonEnvelope {
+
+    private static final byte[] OK_OPEN = ascii("{\"ok\":true,\"message\":");
+    private static final byte[] DATA = ascii(",\"data\":");
+    private static final byte[] TIMESTAMP = ascii(",\"timestamp\":");
+    private static final byte[] PATH = ascii(",\"path\":");
+    private static final byte[] NULL = ascii("null");
+    private static final byte[] HEX = ascii("0123456789ABCDEF");
+
+    private DtoJsonEnvelope() {}
+
+    public static byte[] ok(String message, byte[] data, Instant timestamp, String path) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream((data == null ? 4 : data.length) + 128);
+        out.writeBytes(OK_OPEN);
+        writeString(out, message);
+        out.writeBytes(DATA);
+        out.writeBytes(data == null ? NULL : data);
+        out.writeBytes(TIMESTAMP);
+        writeString(out, timestamp == null ? null : DateTimeFormatter.ISO_INSTANT.format(timestamp));
+        out.writeBytes(PATH);
+        writeString(out, path);
+        out.write('}');
+        return out.toByteArray();
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        if (value == null) {
+            out.writeBytes(NULL);
+            return;
+        }
+        out.write('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') continue;
+            out.writeBytes(value.substring(start, i).getBytes(StandardCharsets.UTF_8));
+            out.write('\\');
+            switch (c) {
+                case '"', '\\' -> out.write(c);
+                case '\b' -> out.write('b');
+                case '\t' -> out.write('t');
+                case '\n' -> out.write('n');
+                case '\f' -> out.write('f');
+                case '\r' -> out.write('r');
+                default -> {
+                    out.writeBytes(ascii("u00"));
+                    out.write(HEX[c >> 4]);
+                    out.write(HEX[c & 0xF]);
+                }
+            }
+            start = i + 1;
+        }
+        out.writeBytes(value.substring(start).getBytes(StandardCharsets.UTF_8));
+        out.write('"');
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
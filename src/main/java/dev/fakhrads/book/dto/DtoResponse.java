@@ -1,5 +1,7 @@
 package dev.fakhrads.book.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.time.Instant;
 
 public class DtoResponse<T> {
@@ -9,6 +11,12 @@ public class DtoResponse<T> {
     private Instant timestamp;
     private String path;
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long totalEstimate;
+
     public DtoResponse() {}
 
     public DtoResponse(boolean ok, String message, T data, Instant timestamp, String path) {
@@ -33,4 +41,10 @@ public class DtoResponse<T> {
 
     public String getPath() { return path; }
     public void setPath(String path) { this.path = path; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+
+    public Long getTotalEstimate() { return totalEstimate; }
+    public void setTotalEstimate(Long totalEstimate) { this.totalEstimate = totalEstimate; }
 }
@@ -13,7 +13,8 @@ import java.time.LocalDate;
 public class Book {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "books_id_gen")
+    @SequenceGenerator(name = "books_id_gen", sequenceName = "books_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, length = 200)
@@ -28,6 +29,10 @@ public class Book {
     @Column(name = "published_date")
     private LocalDate publishedDate;
 
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     public Book() {}
 
     public Book(Long id, String title, String author, String isbn, LocalDate publishedDate) {
@@ -52,4 +57,7 @@ public class Book {
 
     public LocalDate getPublishedDate() { return publishedDate; }
     public void setPublishedDate(LocalDate publishedDate) { this.publishedDate = publishedDate; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
@@ -0,0 +1,7 @@
+package dev.fakhrads.book.exception;
+
+public class BadRequestException extends RuntimeException {
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
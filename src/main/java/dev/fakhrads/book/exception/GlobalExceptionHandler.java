@@ -1,40 +1,87 @@
 package dev.fakhrads.book.exception;
 
+import dev.fakhrads.book.metrics.ErrorMetrics;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.async.AsyncRequestNotUsableException;
 
 import java.time.Instant;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    private final ErrorMetrics errors;
+
+    public GlobalExceptionHandler(ErrorMetrics errors) {
+        this.errors = errors;
+    }
+
     @ExceptionHandler(NotFoundException.class)
     public ResponseEntity<ApiErrorResponse> handleNotFound(NotFoundException ex, HttpServletRequest req) {
-        return build(HttpStatus.NOT_FOUND, ex.getMessage(), req.getRequestURI());
+        return build(ex, HttpStatus.NOT_FOUND, ex.getMessage(), req.getRequestURI());
     }
 
     @ExceptionHandler({MethodArgumentNotValidException.class, BindException.class})
     public ResponseEntity<ApiErrorResponse> handleValidation(Exception ex, HttpServletRequest req) {
-        return build(HttpStatus.BAD_REQUEST, "Validation error", req.getRequestURI());
+        return build(ex, HttpStatus.BAD_REQUEST, "Validation error", req.getRequestURI());
+    }
+
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<ApiErrorResponse> handleBadRequest(BadRequestException ex, HttpServletRequest req) {
+        return build(ex, HttpStatus.BAD_REQUEST, ex.getMessage(), req.getRequestURI());
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<ApiErrorResponse> handlePreconditionFailed(PreconditionFailedException ex, HttpServletRequest req) {
+        return build(ex, HttpStatus.PRECONDITION_FAILED, ex.getMessage(), req.getRequestURI());
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ApiErrorResponse> handleTooManyRequests(TooManyRequestsException ex, HttpServletRequest req) {
+        ResponseEntity<ApiErrorResponse> res = build(ex, HttpStatus.TOO_MANY_REQUESTS, ex.getMessage(), req.getRequestURI());
+        return ResponseEntity.status(res.getStatusCode())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(res.getBody());
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ApiErrorResponse> handleServiceUnavailable(ServiceUnavailableException ex, HttpServletRequest req) {
+        ResponseEntity<ApiErrorResponse> res = build(ex, HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage(), req.getRequestURI());
+        return ResponseEntity.status(res.getStatusCode())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(res.getBody());
+    }
+
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<ApiErrorResponse> handleOptimisticLock(ObjectOptimisticLockingFailureException ex, HttpServletRequest req) {
+        return build(ex, HttpStatus.PRECONDITION_FAILED, "Book was modified concurrently", req.getRequestURI());
     }
 
     @ExceptionHandler(DataIntegrityViolationException.class)
     public ResponseEntity<ApiErrorResponse> handleConstraint(DataIntegrityViolationException ex, HttpServletRequest req) {
-        return build(HttpStatus.CONFLICT, "Data constraint violation (maybe duplicate ISBN)", req.getRequestURI());
+        return build(ex, HttpStatus.CONFLICT, "Data constraint violation (maybe duplicate ISBN)", req.getRequestURI());
+    }
+
+    // the client closed a streaming response (SSE, export); there is nobody left to send an error body to
+    @ExceptionHandler(AsyncRequestNotUsableException.class)
+    public void handleClientGone(AsyncRequestNotUsableException ex) {
     }
 
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ApiErrorResponse> handleAny(Exception ex, HttpServletRequest req) {
-        return build(HttpStatus.INTERNAL_SERVER_ERROR, "Unexpected error", req.getRequestURI());
+        return build(ex, HttpStatus.INTERNAL_SERVER_ERROR, "Unexpected error", req.getRequestURI());
     }
 
-    private ResponseEntity<ApiErrorResponse> build(HttpStatus status, String message, String path) {
+    private ResponseEntity<ApiErrorResponse> build(Exception ex, HttpStatus status, String message, String path) {
+        errors.count(ex, status);
         ApiErrorResponse body = new ApiErrorResponse(
                 Instant.now(),
                 status.value(),
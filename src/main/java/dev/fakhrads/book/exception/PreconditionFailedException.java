@@ -0,0 +1,7 @@
+package dev.fakhrads.book.exception;
+
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,341 @@
+package dev.fakhrads.book.ingest;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.fakhrads.book.exception.TooManyRequestsException;
+import dev.fakhrads.book.service.BookService;
+import dev.fakhrads.book.vo.BookVoBulkItemResult;
+import dev.fakhrads.book.vo.BookVoBulkResponse;
+import dev.fakhrads.book.vo.BookVoCreateRequest;
+import dev.fakhrads.book.vo.BookVoIngestJob;
+import dev.fakhrads.book.vo.BookVoIngestStats;
+import dev.fakhrads.book.vo.BookVoIngestStatus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Write-behind path for POST /api/books with "Prefer: respond-async". The controller validates the payload, the job
+// is queued in memory (after being appended to the journal, when one is configured) and the client gets 202 with a
+// job id. A few worker threads drain the queue in batches through BookService.createBulk, so a burst holds at most
+// `workers` pool connections instead of one per request. Admission stops at queue-capacity with 429.
+@Component
+public class BookIngestQueue implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(BookIngestQueue.class);
+    private static final long POLL_MS = 200;
+
+    private final BookService service;
+    private final JsonMapper jsonMapper;
+    private final boolean enabled;
+    private final int capacity;
+    private final int workers;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long retryAfterSeconds;
+    private final long stopTimeoutMs;
+    private final String journalPath;
+    private final boolean journalFsync;
+
+    private final BlockingQueue<Job> queue = new LinkedBlockingQueue<>();
+    private final Cache<String, BookVoIngestJob> jobs;
+    // admission, journal writes and truncation are serialized; a lock rather than synchronized so a virtual thread
+    // waiting on the journal fsync does not pin its carrier
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final List<Thread> threads = new ArrayList<>();
+
+    // opened and closed under the lock; volatile for the two lock-free reads, submit's serialize-early check and
+    // drain's shutdown check. Anything that writes to the journal reads it once, under the lock.
+    private volatile IngestJournal journal;
+    private long pending;
+    private volatile boolean running;
+
+    public BookIngestQueue(
+            BookService service,
+            JsonMapper jsonMapper,
+            MeterRegistry registry,
+            @Value("${book.ingest.async.enabled:false}") boolean enabled,
+            @Value("${book.ingest.queue-capacity:10000}") int capacity,
+            @Value("${book.ingest.workers:2}") int workers,
+            @Value("${book.ingest.batch-size:500}") int batchSize,
+            @Value("${book.ingest.max-attempts:3}") int maxAttempts,
+            @Value("${book.ingest.retry-after-seconds:1}") long retryAfterSeconds,
+            @Value("${book.ingest.job-retention-ms:3600000}") long jobRetentionMs,
+            @Value("${book.ingest.max-jobs:100000}") long maxJobs,
+            @Value("${book.ingest.stop-timeout-ms:10000}") long stopTimeoutMs,
+            @Value("${book.ingest.journal:}") String journalPath,
+            @Value("${book.ingest.journal-fsync:true}") boolean journalFsync
+    ) {
+        this.service = service;
+        this.jsonMapper = jsonMapper;
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.stopTimeoutMs = stopTimeoutMs;
+        this.journalPath = journalPath;
+        this.journalFsync = journalFsync;
+        this.jobs = Caffeine.newBuilder()
+                .maximumSize(maxJobs)
+                .expireAfterWrite(Duration.ofMillis(jobRetentionMs))
+                .build();
+        Gauge.builder("book.ingest.queue.depth", queue, BlockingQueue::size).register(registry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public BookVoIngestJob submit(BookVoCreateRequest req) {
+        String jobId = UUID.randomUUID().toString();
+        Instant now = Instant.now();
+        // serialized before taking the lock when a journal is open; re-checked below, since it may open or close meanwhile
+        String json = journal == null ? null : jsonMapper.writeValueAsString(req);
+        BookVoIngestJob status = new BookVoIngestJob(jobId, BookVoIngestStatus.QUEUED, null, req.getIsbn(), null, now, null);
+        // registered first: a worker may finish the job before this method returns
+        jobs.put(jobId, status);
+
+        lock.lock();
+        try {
+            if (queue.size() >= capacity) {
+                jobs.invalidate(jobId);
+                rejected.increment();
+                throw new TooManyRequestsException("Ingest queue is full, retry later", retryAfterSeconds);
+            }
+            IngestJournal journal = this.journal;
+            if (journal != null) {
+                journal.accepted(jobId, now.toEpochMilli(), json != null ? json : jsonMapper.writeValueAsString(req));
+            }
+            pending++;
+            queue.add(new Job(jobId, req, now));
+        } finally {
+            lock.unlock();
+        }
+        accepted.increment();
+        return status;
+    }
+
+    public BookVoIngestJob find(String jobId) {
+        return jobs.getIfPresent(jobId);
+    }
+
+    public BookVoIngestStats stats() {
+        BookVoIngestStats stats = new BookVoIngestStats();
+        stats.setEnabled(enabled);
+        stats.setQueueDepth(queue.size());
+        stats.setQueueCapacity(capacity);
+        stats.setWorkers(workers);
+        stats.setBatchSize(batchSize);
+        stats.setAccepted(accepted.sum());
+        stats.setRejected(rejected.sum());
+        stats.setCompleted(completed.sum());
+        stats.setFailed(failed.sum());
+        lock.lock();
+        try {
+            stats.setPending(pending);
+            IngestJournal journal = this.journal;
+            stats.setJournalEnabled(journal != null);
+            stats.setJournalBytes(journal == null ? 0 : journal.size());
+        } finally {
+            lock.unlock();
+        }
+        return stats;
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) return;
+        if (!journalPath.isBlank()) openJournal();
+        running = true;
+        for (int i = 1; i <= workers; i++) {
+            Thread t = new Thread(this::drain, "book-ingest-" + i);
+            t.setDaemon(true);
+            t.start();
+            threads.add(t);
+        }
+        log.info("Async ingest started: workers={} batchSize={} capacity={} journal={}",
+                workers, batchSize, capacity, journal == null ? "off" : journalPath);
+    }
+
+    // with a journal the workers stop after their current batch and the rest is replayed on the next start;
+    // without one they keep draining until the queue is empty or stop-timeout-ms runs out
+    @Override
+    public void stop() {
+        running = false;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(stopTimeoutMs);
+        for (Thread t : threads) {
+            try {
+                t.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        threads.forEach(Thread::interrupt);
+        threads.clear();
+
+        if (!queue.isEmpty()) {
+            if (journal != null) {
+                log.info("Async ingest stopped with {} queued jobs; they are replayed from the journal on restart", queue.size());
+            } else {
+                log.warn("Async ingest stopped with {} queued jobs and no journal; they are lost", queue.size());
+            }
+        }
+        lock.lock();
+        try {
+            if (journal != null) {
+                try {
+                    journal.close();
+                } catch (IOException ex) {
+                    log.warn("Closing the ingest journal failed: {}", ex.toString());
+                }
+                journal = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+        queue.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // stops after the web server, so no request can be admitted once the workers are gone
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void openJournal() {
+        lock.lock();
+        try {
+            IngestJournal journal = new IngestJournal(Path.of(journalPath), journalFsync);
+            List<IngestJournal.Entry> recovered = journal.recover();
+            for (IngestJournal.Entry e : recovered) {
+                BookVoCreateRequest req = jsonMapper.readValue(e.json(), BookVoCreateRequest.class);
+                Instant acceptedAt = Instant.ofEpochMilli(e.acceptedAtMs());
+                jobs.put(e.jobId(), new BookVoIngestJob(e.jobId(), BookVoIngestStatus.QUEUED, null, req.getIsbn(), null, acceptedAt, null));
+                queue.add(new Job(e.jobId(), req, acceptedAt));
+            }
+            pending = recovered.size();
+            this.journal = journal;
+            if (!recovered.isEmpty()) log.info("Replaying {} ingest jobs from {}", recovered.size(), journalPath);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot open ingest journal " + journalPath, ex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void drain() {
+        List<Job> batch = new ArrayList<>(batchSize);
+        while (true) {
+            if (!running && (journal != null || queue.isEmpty())) return;
+            Job first;
+            try {
+                first = queue.poll(POLL_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                return;
+            }
+            if (first == null) continue;
+
+            batch.add(first);
+            queue.drainTo(batch, batchSize - 1);
+            try {
+                process(batch);
+            } catch (RuntimeException ex) {
+                log.error("Ingest batch of {} jobs could not be recorded", batch.size(), ex);
+            }
+            batch.clear();
+        }
+    }
+
+    private void process(List<Job> batch) {
+        BookVoBulkResponse result = insert(batch.stream().map(Job::req).toList());
+        Instant now = Instant.now();
+        List<String> ids = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            Job job = batch.get(i);
+            BookVoIngestJob done = result == null
+                    ? finished(job, BookVoIngestStatus.FAILED, null, "Insert failed after " + maxAttempts + " attempts", now)
+                    : finished(job, result.getItems().get(i), now);
+            jobs.put(job.id(), done);
+            ids.add(job.id());
+            if (done.getStatus() == BookVoIngestStatus.FAILED) failed.increment(); else completed.increment();
+        }
+
+        lock.lock();
+        try {
+            pending -= batch.size();
+            IngestJournal journal = this.journal;
+            if (journal != null) {
+                // nothing outstanding: drop the whole file instead of letting done lines pile up
+                if (pending == 0) journal.clear(); else journal.done(ids);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // createBulk reports invalid rows and ISBN conflicts per item; only infrastructure failures are retried
+    private BookVoBulkResponse insert(List<BookVoCreateRequest> reqs) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return service.createBulk(reqs);
+            } catch (RuntimeException ex) {
+                if (attempt >= maxAttempts) {
+                    log.error("Ingest batch of {} jobs failed after {} attempts", reqs.size(), attempt, ex);
+                    return null;
+                }
+                log.warn("Ingest batch of {} jobs failed (attempt {}/{}), retrying: {}", reqs.size(), attempt, maxAttempts, ex.toString());
+                try {
+                    Thread.sleep(1000L * attempt);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+            }
+        }
+    }
+
+    private static BookVoIngestJob finished(Job job, BookVoBulkItemResult item, Instant now) {
+        BookVoIngestStatus status = switch (item.getStatus()) {
+            case CREATED -> BookVoIngestStatus.CREATED;
+            case INVALID -> BookVoIngestStatus.INVALID;
+            case DUPLICATE_ISBN -> BookVoIngestStatus.DUPLICATE_ISBN;
+        };
+        return finished(job, status, item.getId(), item.getMessage(), now);
+    }
+
+    private static BookVoIngestJob finished(Job job, BookVoIngestStatus status, Long bookId, String message, Instant now) {
+        return new BookVoIngestJob(job.id(), status, bookId, job.req().getIsbn(), message, job.acceptedAt(), now);
+    }
+
+    private record Job(String id, BookVoCreateRequest req, Instant acceptedAt) {}
+}
@@ -0,0 +1,106 @@
+package dev.fakhrads.book.ingest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Append-only log of accepted and finished jobs, one line each: "A <tab> jobId <tab> acceptedAtMs <tab> json" and
+// "D <tab> jobId". Only accepted lines are forced to disk; a lost done line just replays a job whose ISBN then
+// reports as a duplicate. Not thread-safe, callers serialize access.
+final class IngestJournal implements AutoCloseable {
+
+    record Entry(String jobId, long acceptedAtMs, String json) {}
+
+    private final Path path;
+    private final boolean fsync;
+    private final FileChannel channel;
+
+    IngestJournal(Path path, boolean fsync) throws IOException {
+        this.path = path;
+        this.fsync = fsync;
+        if (path.getParent() != null) Files.createDirectories(path.getParent());
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    // jobs accepted but never finished; the file is rewritten to hold just those
+    List<Entry> recover() throws IOException {
+        Map<String, Entry> pending = new LinkedHashMap<>();
+        try (BufferedReader in = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] parts = line.split("\t", 4);
+                if (parts.length == 4 && parts[0].equals("A")) {
+                    pending.put(parts[1], new Entry(parts[1], Long.parseLong(parts[2]), parts[3]));
+                } else if (parts.length == 2 && parts[0].equals("D")) {
+                    pending.remove(parts[1]);
+                }
+                // anything else is a line torn by a crash mid-write
+            }
+        }
+
+        channel.truncate(0);
+        for (Entry e : pending.values()) write(accepted(e));
+        channel.force(false);
+        return new ArrayList<>(pending.values());
+    }
+
+    void accepted(String jobId, long acceptedAtMs, String json) {
+        try {
+            write(accepted(new Entry(jobId, acceptedAtMs, json)));
+            if (fsync) channel.force(false);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    void done(Collection<String> jobIds) {
+        StringBuilder buf = new StringBuilder(jobIds.size() * 40);
+        for (String id : jobIds) buf.append("D\t").append(id).append('\n');
+        try {
+            write(buf.toString());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    void clear() {
+        try {
+            channel.truncate(0);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    long size() {
+        try {
+            return channel.size();
+        } catch (IOException ex) {
+            return -1;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static String accepted(Entry e) {
+        return "A\t" + e.jobId() + "\t" + e.acceptedAtMs() + "\t" + e.json() + "\n";
+    }
+
+    private void write(String text) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        while (buf.hasRemaining()) channel.write(buf);
+    }
+}
@@ -0,0 +1,29 @@
+package dev.fakhrads.book.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// book.errors{exception,status}: one count per exception turned into an error response by the controller advices.
+@Component
+public class ErrorMetrics {
+
+    private final MeterRegistry registry;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public ErrorMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void count(Exception ex, HttpStatus status) {
+        String exception = ex.getClass().getSimpleName();
+        counters.computeIfAbsent(exception + '|' + status.value(), k -> Counter.builder("book.errors")
+                .tag("exception", exception)
+                .tag("status", String.valueOf(status.value()))
+                .register(registry)).increment();
+    }
+}
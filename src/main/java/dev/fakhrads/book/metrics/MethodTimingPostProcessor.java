@@ -0,0 +1,99 @@
+package dev.fakhrads.book.metrics;
+
+import dev.fakhrads.book.dao.BookDao;
+import dev.fakhrads.book.service.BookImportService;
+import dev.fakhrads.book.service.BookService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ClassFilter;
+import org.springframework.aop.framework.AbstractAdvisingBeanPostProcessor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Times every public method of the service and DAO beans: book.service{class,method,exception} and
+// book.dao{method,exception}. The advice goes in front of the transaction interceptor, so a service timer includes
+// its commit, and a DAO timer is effectively the query-execution time of that call. Timers are cached per method so
+// the hot path is one map lookup plus Timer.record.
+@Component
+public class MethodTimingPostProcessor extends AbstractAdvisingBeanPostProcessor {
+
+    private static final Map<Class<?>, String> TIMED = Map.of(
+            BookService.class, "book.service",
+            BookImportService.class, "book.service",
+            BookDao.class, "book.dao"
+    );
+
+    public MethodTimingPostProcessor(
+            ObjectProvider<MeterRegistry> registry,
+            @Value("${book.metrics.method-timers.enabled:true}") boolean enabled
+    ) {
+        setBeforeExistingAdvisors(true);
+        setProxyTargetClass(true);
+        ClassFilter timed = clazz -> enabled && timedInterface(clazz) != null;
+        this.advisor = new DefaultPointcutAdvisor(new ComposablePointcut(timed), new TimingInterceptor(registry));
+    }
+
+    private static Class<?> timedInterface(Class<?> clazz) {
+        for (Class<?> type : TIMED.keySet()) {
+            if (type.isAssignableFrom(clazz)) return type;
+        }
+        return null;
+    }
+
+    private static final class TimingInterceptor implements MethodInterceptor {
+
+        private final ObjectProvider<MeterRegistry> registryProvider;
+        private final Map<Method, Timer> success = new ConcurrentHashMap<>();
+        private volatile MeterRegistry registry;
+
+        TimingInterceptor(ObjectProvider<MeterRegistry> registryProvider) {
+            this.registryProvider = registryProvider;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            MeterRegistry r = registry();
+            if (r == null || invocation.getMethod().getDeclaringClass() == Object.class) return invocation.proceed();
+
+            long started = System.nanoTime();
+            try {
+                Object result = invocation.proceed();
+                success.computeIfAbsent(invocation.getMethod(), m -> timer(r, invocation, "none"))
+                        .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                return result;
+            } catch (Throwable ex) {
+                timer(r, invocation, ex.getClass().getSimpleName())
+                        .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                throw ex;
+            }
+        }
+
+        // resolved on first use: post-processors are created before the registry exists
+        private MeterRegistry registry() {
+            MeterRegistry r = registry;
+            if (r == null) registry = r = registryProvider.getIfAvailable();
+            return r;
+        }
+
+        private static Timer timer(MeterRegistry r, MethodInvocation invocation, String exception) {
+            Class<?> target = invocation.getThis() == null ? invocation.getMethod().getDeclaringClass() : invocation.getThis().getClass();
+            Class<?> type = timedInterface(target);
+            String name = type == null ? "book.service" : TIMED.get(type);
+            Timer.Builder builder = Timer.builder(name)
+                    .tag("method", invocation.getMethod().getName())
+                    .tag("exception", exception);
+            if (!"book.dao".equals(name)) builder.tag("class", type == null ? target.getSimpleName() : type.getSimpleName());
+            return builder.register(r);
+        }
+    }
+}
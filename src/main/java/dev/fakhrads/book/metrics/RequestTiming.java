@@ -0,0 +1,64 @@
+package dev.fakhrads.book.metrics;
+
+import java.util.Locale;
+
+// Where the time of one HTTP request went, collected on the request thread: the BookRest handler, the BookService
+// call (transaction included), waiting for a pooled connection, and JDBC statement execution. The layers nest, so
+// their durations overlap rather than add up. Bound to the thread by ServerTimingFilter; everything here is a no-op
+// outside a request.
+public final class RequestTiming {
+
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+    private final long startedNanos = System.nanoTime();
+    private long restNanos;
+    private long serviceNanos;
+    private long connectionNanos;
+    private long sqlNanos;
+    private int statements;
+    private int restDepth;
+    private int serviceDepth;
+
+    private RequestTiming() {}
+
+    static RequestTiming start() {
+        RequestTiming timing = new RequestTiming();
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    static RequestTiming current() {
+        return CURRENT.get();
+    }
+
+    // only the outermost call of a layer is counted, so a handler calling another handler is not timed twice
+    boolean enterRest() { return restDepth++ == 0; }
+    void exitRest(boolean outer, long nanos) { restDepth--; if (outer) restNanos += nanos; }
+
+    boolean enterService() { return serviceDepth++ == 0; }
+    void exitService(boolean outer, long nanos) { serviceDepth--; if (outer) serviceNanos += nanos; }
+
+    void addConnectionWait(long nanos) { connectionNanos += nanos; }
+
+    void addStatement(long nanos) {
+        sqlNanos += nanos;
+        statements++;
+    }
+
+    long elapsedNanos() { return System.nanoTime() - startedNanos; }
+    int statements() { return statements; }
+
+    String header() {
+        return String.format(Locale.ROOT,
+                "app;dur=%.2f, rest;dur=%.2f, svc;dur=%.2f, db-conn;dur=%.2f, sql;dur=%.2f;desc=\"%d statements\"",
+                ms(elapsedNanos()), ms(restNanos), ms(serviceNanos), ms(connectionNanos), ms(sqlNanos), statements);
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1e6;
+    }
+}
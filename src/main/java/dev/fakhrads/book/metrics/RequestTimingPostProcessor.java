@@ -0,0 +1,49 @@
+package dev.fakhrads.book.metrics;
+
+import dev.fakhrads.book.service.BookImportService;
+import dev.fakhrads.book.service.BookService;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.AbstractAdvisingBeanPostProcessor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RestController;
+
+// Adds the rest and svc layers to RequestTiming: the controllers in dev.fakhrads.book.rest and the service beans.
+// Like the Micrometer timers, the advice sits in front of the transaction interceptor so svc includes the commit.
+@Component
+public class RequestTimingPostProcessor extends AbstractAdvisingBeanPostProcessor {
+
+    private static final String REST_PACKAGE = "dev.fakhrads.book.rest";
+
+    public RequestTimingPostProcessor(@Value("${book.server-timing.enabled:true}") boolean enabled) {
+        setBeforeExistingAdvisors(true);
+        setProxyTargetClass(true);
+        this.advisor = new DefaultPointcutAdvisor(
+                new ComposablePointcut(clazz -> enabled && (isController(clazz) || isService(clazz))),
+                (MethodInterceptor) invocation -> {
+                    RequestTiming timing = RequestTiming.current();
+                    if (timing == null) return invocation.proceed();
+
+                    boolean rest = isController(invocation.getThis().getClass());
+                    boolean outer = rest ? timing.enterRest() : timing.enterService();
+                    long started = System.nanoTime();
+                    try {
+                        return invocation.proceed();
+                    } finally {
+                        long nanos = System.nanoTime() - started;
+                        if (rest) timing.exitRest(outer, nanos);
+                        else timing.exitService(outer, nanos);
+                    }
+                });
+    }
+
+    private static boolean isController(Class<?> clazz) {
+        return clazz.getPackageName().equals(REST_PACKAGE) && clazz.isAnnotationPresent(RestController.class);
+    }
+
+    private static boolean isService(Class<?> clazz) {
+        return BookService.class.isAssignableFrom(clazz) || BookImportService.class.isAssignableFrom(clazz);
+    }
+}
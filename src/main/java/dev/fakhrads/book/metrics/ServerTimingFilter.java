@@ -0,0 +1,126 @@
+package dev.fakhrads.book.metrics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Binds a RequestTiming to every /api request and reports it as a Server-Timing header. Headers have to be out
+// before the body, so the header is added when the response body is first opened (i.e. after the handler, before
+// JSON serialization) or, for bodiless responses such as 304, when the chain returns. Requests over the statement or
+// latency budget are logged with the same breakdown; per-route statement budgets take "METHOD pattern:count" entries
+// and long-running routes (export, import) can be left out of the check entirely.
+@Component
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(ServerTimingFilter.class);
+    private static final String HEADER = "Server-Timing";
+
+    private final boolean enabled;
+    private final int maxStatements;
+    private final long maxLatencyNanos;
+    private final Map<String, Integer> routeStatementBudgets = new HashMap<>();
+    private final Set<String> unbudgetedRoutes;
+
+    public ServerTimingFilter(
+            @Value("${book.server-timing.enabled:true}") boolean enabled,
+            @Value("${book.server-timing.max-statements:10}") int maxStatements,
+            @Value("${book.server-timing.max-latency-ms:500}") long maxLatencyMs,
+            @Value("${book.server-timing.route-statement-budgets:}") List<String> routeStatementBudgets,
+            @Value("${book.server-timing.unbudgeted-routes:}") Set<String> unbudgetedRoutes
+    ) {
+        this.enabled = enabled;
+        this.maxStatements = maxStatements;
+        this.maxLatencyNanos = TimeUnit.MILLISECONDS.toNanos(maxLatencyMs);
+        this.unbudgetedRoutes = unbudgetedRoutes;
+        for (String entry : routeStatementBudgets) {
+            int colon = entry.lastIndexOf(':');
+            if (colon <= 0) throw new IllegalArgumentException("Expected 'METHOD pattern:count', got: " + entry);
+            this.routeStatementBudgets.put(entry.substring(0, colon).trim(), Integer.parseInt(entry.substring(colon + 1).trim()));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestTiming timing = RequestTiming.start();
+        TimingResponse timed = new TimingResponse(response, timing);
+        try {
+            chain.doFilter(request, timed);
+        } finally {
+            RequestTiming.clear();
+            timed.writeHeader();
+            checkBudget(request, response, timing);
+        }
+    }
+
+    private void checkBudget(HttpServletRequest request, HttpServletResponse response, RequestTiming timing) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String route = request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+        if (unbudgetedRoutes.contains(route)) return;
+        int statementBudget = routeStatementBudgets.getOrDefault(route, maxStatements);
+        long elapsed = timing.elapsedNanos();
+
+        if (timing.statements() > statementBudget || elapsed > maxLatencyNanos) {
+            log.warn("Request over budget: {} -> {} in {} ms with {} statements (budget {} statements, {} ms): {}",
+                    route, response.getStatus(), TimeUnit.NANOSECONDS.toMillis(elapsed), timing.statements(),
+                    statementBudget, TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos), timing.header());
+        }
+    }
+
+    private static final class TimingResponse extends HttpServletResponseWrapper {
+
+        private final RequestTiming timing;
+        private boolean written;
+
+        TimingResponse(HttpServletResponse response, RequestTiming timing) {
+            super(response);
+            this.timing = timing;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeader();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeader();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeader();
+            super.flushBuffer();
+        }
+
+        void writeHeader() {
+            if (written || isCommitted()) return;
+            written = true;
+            setHeader(HEADER, timing.header());
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package dev.fakhrads.book.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aot.AotDetector;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Startup milestones measured from JVM start, reported once the first request has been served so time-to-first-request
+// can be compared release to release: main (JVM boot), refreshed (beans incl. Flyway and Hibernate created, Tomcat
+// listening), ready (runners done), first-request (first response written). The slowest beans are ranked by self
+// time from the BufferingApplicationStartup timeline installed in AppConfig.main. The report is logged, exported as
+// book.startup.time gauges and, if a report file is set, appended to it as one JSON line.
+@Component
+public class StartupReport extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupReport.class);
+    private static final String BEAN_STEP = "spring.beans.instantiate";
+
+    private final ApplicationStartup startup;
+    private final JsonMapper mapper;
+    private final int topBeans;
+    private final String reportFile;
+
+    private final long jvmStartMs = ManagementFactory.getRuntimeMXBean().getStartTime();
+    private volatile long mainMs = -1;
+    private volatile long refreshedMs = -1;
+    private volatile long readyMs = -1;
+    private volatile long firstRequestMs = -1;
+    private final AtomicBoolean firstRequest = new AtomicBoolean();
+
+    public StartupReport(
+            ApplicationStartup startup,
+            JsonMapper mapper,
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${book.startup.report.top-beans:10}") int topBeans,
+            @Value("${book.startup.report.file:}") String reportFile
+    ) {
+        this.startup = startup;
+        this.mapper = mapper;
+        this.topBeans = topBeans;
+        this.reportFile = reportFile;
+        if (startup instanceof BufferingApplicationStartup buffering) {
+            this.mainMs = buffering.getBufferedTimeline().getStartTime().toEpochMilli();
+        }
+        meterRegistry.ifAvailable(registry -> {
+            for (String milestone : List.of("main", "refreshed", "ready", "first-request")) {
+                TimeGauge.builder("book.startup.time", this, TimeUnit.MILLISECONDS, r -> r.milestones().getOrDefault(milestone, Double.NaN))
+                        .tag("milestone", milestone)
+                        .description("Time from JVM start until the startup milestone was reached")
+                        .register(registry);
+            }
+        });
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void onRefreshed() {
+        if (refreshedMs < 0) refreshedMs = System.currentTimeMillis();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        readyMs = System.currentTimeMillis();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return firstRequestMs >= 0;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (firstRequest.compareAndSet(false, true)) {
+                firstRequestMs = System.currentTimeMillis();
+                // off the request thread: ranking the timeline is a few ms the first caller should not wait for
+                Thread.ofPlatform().daemon().name("startup-report").start(this::report);
+            }
+        }
+    }
+
+    // offsets rather than durations: Tomcat serves (probe) requests once refreshed, which can be before ready
+    private Map<String, Double> milestones() {
+        Map<String, Double> milestones = new LinkedHashMap<>();
+        if (mainMs >= 0) milestones.put("main", (double) (mainMs - jvmStartMs));
+        if (refreshedMs >= 0) milestones.put("refreshed", (double) (refreshedMs - jvmStartMs));
+        if (readyMs >= 0) milestones.put("ready", (double) (readyMs - jvmStartMs));
+        if (firstRequestMs >= 0) milestones.put("first-request", (double) (firstRequestMs - jvmStartMs));
+        return milestones;
+    }
+
+    private void report() {
+        Map<String, Double> milestones = milestones();
+        Map<String, Long> slowest = slowestBeans();
+        boolean aot = AotDetector.useGeneratedArtifacts();
+        boolean cds = ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+                .anyMatch(arg -> arg.startsWith("-XX:SharedArchiveFile") || arg.equals("-XX:+AutoCreateSharedArchive"));
+
+        StringBuilder line = new StringBuilder("Startup report (ms from JVM start):");
+        milestones.forEach((milestone, ms) -> line.append(' ').append(milestone).append('=').append(ms.longValue()));
+        line.append(" aot=").append(aot).append(" cds=").append(cds);
+        log.info("{}", line);
+        if (!slowest.isEmpty()) log.info("Slowest beans by self time (ms): {}", slowest);
+
+        if (!reportFile.isBlank()) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("at", Instant.ofEpochMilli(firstRequestMs).toString());
+            json.put("version", StartupReport.class.getPackage().getImplementationVersion());
+            json.put("aot", aot);
+            json.put("cds", cds);
+            json.put("milestonesMs", milestones);
+            json.put("slowestBeansMs", slowest);
+            try {
+                Files.writeString(Path.of(reportFile), mapper.writeValueAsString(json) + "\n",
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException ex) {
+                log.warn("Could not append startup report to {}: {}", reportFile, ex.toString());
+            }
+        }
+    }
+
+    // an instantiate step includes every dependency created inside it, so the children's time is taken off
+    private Map<String, Long> slowestBeans() {
+        if (!(startup instanceof BufferingApplicationStartup buffering) || topBeans <= 0) return Map.of();
+        List<StartupTimeline.TimelineEvent> events = buffering.getBufferedTimeline().getEvents();
+        Map<Long, Long> childNanos = new HashMap<>();
+        for (StartupTimeline.TimelineEvent e : events) {
+            Long parent = e.getStartupStep().getParentId();
+            if (parent != null) childNanos.merge(parent, e.getDuration().toNanos(), Long::sum);
+        }
+        List<Map.Entry<String, Long>> beans = new ArrayList<>();
+        for (StartupTimeline.TimelineEvent e : events) {
+            if (!BEAN_STEP.equals(e.getStartupStep().getName())) continue;
+            long self = e.getDuration().toNanos() - childNanos.getOrDefault(e.getStartupStep().getId(), 0L);
+            beans.add(Map.entry(beanName(e), TimeUnit.NANOSECONDS.toMillis(self)));
+        }
+        beans.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()));
+        Map<String, Long> top = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> bean : beans.subList(0, Math.min(topBeans, beans.size()))) {
+            top.merge(bean.getKey(), bean.getValue(), Long::sum);
+        }
+        return top;
+    }
+
+    private static String beanName(StartupTimeline.TimelineEvent e) {
+        for (var tag : e.getStartupStep().getTags()) {
+            if ("beanName".equals(tag.getKey())) return tag.getValue();
+        }
+        return "?";
+    }
+}
@@ -0,0 +1,93 @@
+package dev.fakhrads.book.metrics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Feeds RequestTiming from the JDBC layer: time spent in getConnection (pool and permit wait) and in every execute*
+// call. Only connections checked out on a request thread are wrapped, so background work pays nothing. Row fetching
+// after executeQuery returns is not counted as SQL time.
+public class StatementTimingDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    public StatementTimingDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long started = System.nanoTime();
+        Connection connection = obtainTargetDataSource().getConnection();
+        return timed(connection, started);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long started = System.nanoTime();
+        Connection connection = obtainTargetDataSource().getConnection(username, password);
+        return timed(connection, started);
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (obtainTargetDataSource() instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private static Connection timed(Connection target, long started) {
+        RequestTiming timing = RequestTiming.current();
+        if (timing == null) return target;
+        timing.addConnectionWait(System.nanoTime() - started);
+
+        return proxy(Connection.class, target, (proxy, method, args) -> {
+            Object result = invoke(target, method, args);
+            return switch (result) {
+                case CallableStatement cs -> statement(CallableStatement.class, cs);
+                case PreparedStatement ps -> statement(PreparedStatement.class, ps);
+                case Statement st -> statement(Statement.class, st);
+                case null, default -> result;
+            };
+        });
+    }
+
+    private static <S extends Statement> S statement(Class<S> type, S target) {
+        return proxy(type, target, (proxy, method, args) -> {
+            if (!method.getName().startsWith("execute")) return invoke(target, method, args);
+            long started = System.nanoTime();
+            try {
+                return invoke(target, method, args);
+            } finally {
+                RequestTiming timing = RequestTiming.current();
+                if (timing != null) timing.addStatement(System.nanoTime() - started);
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) ->
+                switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "toString" -> "Timed[" + target + "]";
+                    default -> handler.invoke(proxy, method, args);
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package dev.fakhrads.book.rest;
+
+import dev.fakhrads.book.cache.BookCache;
+import dev.fakhrads.book.changes.BookChangeFeed;
+import dev.fakhrads.book.concurrency.AdmissionControl;
+import dev.fakhrads.book.concurrency.DbPermitDataSource;
+import dev.fakhrads.book.concurrency.VirtualThreadPinningMonitor;
+import dev.fakhrads.book.dto.DtoHelper;
+import dev.fakhrads.book.dto.DtoResponse;
+import dev.fakhrads.book.ingest.BookIngestQueue;
+import dev.fakhrads.book.vo.BookVoAdmissionStats;
+import dev.fakhrads.book.vo.BookVoCacheStats;
+import dev.fakhrads.book.vo.BookVoChangeFeedStats;
+import dev.fakhrads.book.suggest.BookSuggestIndex;
+import dev.fakhrads.book.vo.BookVoConcurrencyStats;
+import dev.fakhrads.book.vo.BookVoIngestStats;
+import dev.fakhrads.book.vo.BookVoSuggestStats;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin")
+@Tag(name = "Admin", description = "Operational statistics")
+public class AdminRest {
+
+    private final BookCache bookCache;
+    private final BookSuggestIndex suggestIndex;
+    private final BookIngestQueue ingestQueue;
+    private final BookChangeFeed changeFeed;
+    private final DataSource dataSource;
+    private final AdmissionControl admission;
+    private final ObjectProvider<VirtualThreadPinningMonitor> pinningMonitor;
+    private final boolean virtualThreads;
+
+    public AdminRest(
+            BookCache bookCache,
+            BookSuggestIndex suggestIndex,
+            BookIngestQueue ingestQueue,
+            BookChangeFeed changeFeed,
+            DataSource dataSource,
+            AdmissionControl admission,
+            ObjectProvider<VirtualThreadPinningMonitor> pinningMonitor,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads
+    ) {
+        this.bookCache = bookCache;
+        this.suggestIndex = suggestIndex;
+        this.ingestQueue = ingestQueue;
+        this.changeFeed = changeFeed;
+        this.dataSource = dataSource;
+        this.admission = admission;
+        this.pinningMonitor = pinningMonitor;
+        this.virtualThreads = virtualThreads;
+    }
+
+    @Operation(
+            summary = "Book cache statistics",
+            description = "Hit/miss/eviction counters and configuration of the in-process book lookup cache."
+    )
+    @GetMapping("/cache/books")
+    public ResponseEntity<DtoResponse<BookVoCacheStats>> bookCacheStats(HttpServletRequest httpReq) {
+        return ResponseEntity.ok(DtoHelper.ok("OK", bookCache.stats(), httpReq.getRequestURI()));
+    }
+
+    @Operation(
+            summary = "Suggest index statistics",
+            description = "Size of the in-memory autocomplete index, estimated heap use per indexed book and build timings."
+    )
+    @GetMapping("/suggest")
+    public ResponseEntity<DtoResponse<BookVoSuggestStats>> suggestStats(HttpServletRequest httpReq) {
+        return ResponseEntity.ok(DtoHelper.ok("OK", suggestIndex.stats(), httpReq.getRequestURI()));
+    }
+
+    @Operation(
+            summary = "Asynchronous ingest statistics",
+            description = "Queue depth and capacity, jobs accepted, rejected with 429, completed and failed, and journal size."
+    )
+    @GetMapping("/ingest")
+    public ResponseEntity<DtoResponse<BookVoIngestStats>> ingestStats(HttpServletRequest httpReq) {
+        return ResponseEntity.ok(DtoHelper.ok("OK", ingestQueue.stats(), httpReq.getRequestURI()));
+    }
+
+    @Operation(
+            summary = "Change feed statistics",
+            description = "Connected subscribers, last published change ID, ring size, backfills, resets, "
+                    + "slow-client disconnects and ID gaps skipped once their writer rolled back."
+    )
+    @GetMapping("/changes")
+    public ResponseEntity<DtoResponse<BookVoChangeFeedStats>> changeFeedStats(HttpServletRequest httpReq) {
+        return ResponseEntity.ok(DtoHelper.ok("OK", changeFeed.stats(), httpReq.getRequestURI()));
+    }
+
+    @Operation(
+            summary = "Request concurrency statistics",
+            description = "Virtual thread mode, database permit usage, virtual thread pinning events by call site and "
+                    + "the adaptive read/write admission limits."
+    )
+    @GetMapping("/concurrency")
+    public ResponseEntity<DtoResponse<BookVoConcurrencyStats>> concurrencyStats(HttpServletRequest httpReq) throws SQLException {
+        BookVoConcurrencyStats stats = new BookVoConcurrencyStats();
+        stats.setVirtualThreads(virtualThreads);
+
+        if (dataSource.isWrapperFor(DbPermitDataSource.class)) {
+            DbPermitDataSource permits = dataSource.unwrap(DbPermitDataSource.class);
+            stats.setDbPermitsEnabled(true);
+            stats.setDbPermits(permits.getLimit());
+            stats.setDbPermitsAvailable(permits.getAvailable());
+            stats.setDbPermitWaiters(permits.getWaiting());
+            stats.setDbPermitTimeouts(permits.getTimeouts());
+        }
+
+        VirtualThreadPinningMonitor monitor = pinningMonitor.getIfAvailable();
+        if (monitor != null) {
+            stats.setPinningMonitorActive(monitor.isRunning());
+            stats.setPinnedEvents(monitor.getEvents());
+            stats.setPinnedSites(monitor.getSites());
+        }
+
+        stats.setAdmissionEnabled(admission.isEnabled());
+        Map<String, BookVoAdmissionStats> limits = new LinkedHashMap<>();
+        admission.getLimiters().forEach((operation, limiter) -> {
+            BookVoAdmissionStats s = new BookVoAdmissionStats();
+            s.setLimit(limiter.getLimit());
+            s.setInFlight(limiter.getInFlight());
+            s.setRejected(limiter.getRejected());
+            s.setBackoffs(limiter.getBackoffs());
+            s.setLatencyTargetMs(limiter.getLatencyTargetMs());
+            limits.put(operation, s);
+        });
+        stats.setAdmission(limits);
+        return ResponseEntity.ok(DtoHelper.ok("OK", stats, httpReq.getRequestURI()));
+    }
+}
@@ -0,0 +1,51 @@
+package dev.fakhrads.book.rest;
+
+import dev.fakhrads.book.exception.BadRequestException;
+import org.springframework.http.MediaType;
+
+// ETags are derived from row versions, never from the serialized body: the DtoResponse envelope carries a
+// per-response timestamp (and a drifting totalEstimate on pages), so hashing bytes would never produce a match.
+// The validator therefore covers the data payload; envelope metadata is regenerated on every 200.
+final class BookEtags {
+
+    private BookEtags() {}
+
+    // a strong validator has to differ between representations that are not byte-identical, so CBOR and Smile
+    // bodies of the same version get their own tag; JSON keeps the bare version
+    static String ofVersion(Long version, MediaType format) {
+        return "\"" + version + suffix(format) + "\"";
+    }
+
+    private static String suffix(MediaType format) {
+        if (format == null) return "";
+        if (format.isCompatibleWith(MediaType.APPLICATION_CBOR)) return "-cbor";
+        if (format.isCompatibleWith(BookRest.SMILE)) return "-smile";
+        return "";
+    }
+
+    // If-Match uses strong comparison, so weak or foreign tags are mapped to a version no row can carry and
+    // the conditional write fails with 412; "*" only requires the book to exist, which the write checks anyway
+    static Long parseIfMatch(String header) {
+        if (header == null || header.isBlank()) return null;
+        String[] tags = header.split(",");
+        if (tags.length > 1) throw new BadRequestException("If-Match with multiple entity tags is not supported");
+        String tag = tags[0].trim();
+        if (tag.equals("*")) return null;
+        if (tag.length() < 3 || !tag.startsWith("\"") || !tag.endsWith("\"")) return -1L;
+        // every representation of a version carries the same data, so any of their tags matches it
+        String value = tag.substring(1, tag.length() - 1);
+        if (value.endsWith("-cbor")) value = value.substring(0, value.length() - "-cbor".length());
+        else if (value.endsWith("-smile")) value = value.substring(0, value.length() - "-smile".length());
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException ex) {
+            return -1L;
+        }
+    }
+
+    // weak: pages are only revalidated with If-None-Match (weak comparison), and a strong tag would keep Tomcat
+    // from gzipping the body, since a strong validator has to change with the content coding
+    static String ofPage(String versionTag) {
+        return "W/\"p-" + versionTag + "\"";
+    }
+}
@@ -1,18 +1,40 @@
 package dev.fakhrads.book.rest;
 
+import dev.fakhrads.book.vo.BookVoBulkResponse;
+import dev.fakhrads.book.vo.BookVoChange;
 import dev.fakhrads.book.vo.BookVoCreateRequest;
+import dev.fakhrads.book.vo.BookVoImportResponse;
+import dev.fakhrads.book.vo.BookVoIngestJob;
+import dev.fakhrads.book.vo.BookVoLookupRequest;
+import dev.fakhrads.book.vo.BookVoLookupResponse;
+import dev.fakhrads.book.vo.BookVoPage;
 import dev.fakhrads.book.vo.BookVoPatchRequest;
 import dev.fakhrads.book.vo.BookVoResponse;
+import dev.fakhrads.book.vo.BookVoSuggestion;
 import dev.fakhrads.book.vo.BookVoUpdateRequest;
+import dev.fakhrads.book.exception.BadRequestException;
+import dev.fakhrads.book.exception.NotFoundException;
+import dev.fakhrads.book.ingest.BookIngestQueue;
+import dev.fakhrads.book.cache.BookJsonCache;
+import dev.fakhrads.book.changes.BookChangeFeed;
+import dev.fakhrads.book.service.BookImportService;
 import dev.fakhrads.book.service.BookService;
+import dev.fakhrads.book.dto.DtoCursor;
 import dev.fakhrads.book.dto.DtoHelper;
+import dev.fakhrads.book.dto.DtoJsonEnvelope;
 import dev.fakhrads.book.dto.DtoResponse;
+import dev.fakhrads.book.vo.swagger.BookSwaggerBulkResponse;
+import dev.fakhrads.book.vo.swagger.BookSwaggerImportResponse;
+import dev.fakhrads.book.vo.swagger.BookSwaggerIngestJobResponse;
 import dev.fakhrads.book.vo.swagger.BookSwaggerListResponse;
+import dev.fakhrads.book.vo.swagger.BookSwaggerLookupResponse;
 import dev.fakhrads.book.vo.swagger.BookSwaggerResponse;
+import dev.fakhrads.book.vo.swagger.BookSwaggerSuggestResponse;
 import dev.fakhrads.book.vo.swagger.VoidSwaggerResponse;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -20,11 +42,27 @@ import io.swagger.v3.oas.annotations.parameters.RequestBody;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.Instant;
 import java.util.List;
 
 @RestController
@@ -32,15 +70,35 @@ import java.util.List;
 @Tag(name = "Books", description = "Book Management CRUD APIs")
 public class BookRest {
 
+    private static final Logger log = LoggerFactory.getLogger(BookRest.class);
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String PREFER = "Prefer";
+    private static final String RESPOND_ASYNC = "respond-async";
+    private static final String LAST_EVENT_ID = "Last-Event-ID";
+    static final MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
+
     private final BookService service;
+    private final BookImportService importService;
+    private final BookJsonCache jsonCache;
+    private final BookIngestQueue ingestQueue;
+    private final BookChangeFeed changeFeed;
+    private final ObjectWriter ndjsonWriter;
 
-    public BookRest(BookService service) {
+    public BookRest(BookService service, BookImportService importService, BookJsonCache jsonCache,
+                    BookIngestQueue ingestQueue, BookChangeFeed changeFeed, JsonMapper jsonMapper) {
         this.service = service;
+        this.importService = importService;
+        this.jsonCache = jsonCache;
+        this.ingestQueue = ingestQueue;
+        this.changeFeed = changeFeed;
+        this.ndjsonWriter = jsonMapper.writerFor(BookVoResponse.class);
     }
 
     @Operation(
             summary = "Add a new book",
-            description = "Creates a new book record and returns the created book wrapped in DtoResponse."
+            description = "Creates a new book record and returns the created book wrapped in DtoResponse. "
+                    + "With 'Prefer: respond-async' and book.ingest.async.enabled the validated book is queued instead "
+                    + "and 202 returns a job id; poll GET /api/books/jobs/{jobId} for the outcome."
     )
     @ApiResponses({
             @ApiResponse(
@@ -48,6 +106,11 @@ public class BookRest {
                     description = "Book created",
                     content = @Content(schema = @Schema(implementation = BookSwaggerResponse.class))
             ),
+            @ApiResponse(
+                    responseCode = "202",
+                    description = "Book queued for asynchronous insert",
+                    content = @Content(schema = @Schema(implementation = BookSwaggerIngestJobResponse.class))
+            ),
             @ApiResponse(
                     responseCode = "400",
                     description = "Validation error",
@@ -57,10 +120,15 @@ public class BookRest {
                     responseCode = "409",
                     description = "Duplicate/constraint error (e.g., ISBN already exists)",
                     content = @Content(schema = @Schema(implementation = VoidSwaggerResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "429",
+                    description = "Asynchronous ingest queue is full; retry after the Retry-After seconds",
+                    content = @Content(schema = @Schema(implementation = VoidSwaggerResponse.class))
             )
     })
     @PostMapping
-    public ResponseEntity<DtoResponse<BookVoResponse>> create(
+    public ResponseEntity<DtoResponse<?>> create(
             @Valid
             @RequestBody(
                     description = "Book payload to create",
@@ -74,33 +142,363 @@ public class BookRest {
                     )
             )
             @org.springframework.web.bind.annotation.RequestBody BookVoCreateRequest req,
+            @Parameter(description = "respond-async queues the insert and answers 202 with a job id")
+            @RequestHeader(value = PREFER, required = false) String prefer,
             HttpServletRequest httpReq
     ) {
+        if (prefer != null && prefer.contains(RESPOND_ASYNC) && ingestQueue.isEnabled()) {
+            BookVoIngestJob job = ingestQueue.submit(req);
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .header("Preference-Applied", RESPOND_ASYNC)
+                    .location(URI.create("/api/books/jobs/" + job.getJobId()))
+                    .body(DtoHelper.ok("Book queued", job, httpReq.getRequestURI()));
+        }
+
         BookVoResponse data = service.create(req);
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(DtoHelper.ok("Book created", data, httpReq.getRequestURI()));
     }
 
     @Operation(
-            summary = "Get all books",
-            description = "Returns list of all books wrapped in DtoResponse."
+            summary = "Get the status of an asynchronous create",
+            description = "Returns QUEUED until a worker has inserted the book, then CREATED with its ID, or "
+                    + "DUPLICATE_ISBN, INVALID or FAILED with a message. Finished jobs are kept for book.ingest.job-retention-ms."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "OK",
+                    content = @Content(schema = @Schema(implementation = BookSwaggerIngestJobResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Unknown or expired job",
+                    content = @Content(schema = @Schema(implementation = VoidSwaggerResponse.class))
+            )
+    })
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<DtoResponse<BookVoIngestJob>> findJob(
+            @Parameter(description = "Job ID returned by an asynchronous create", required = true)
+            @PathVariable String jobId,
+            HttpServletRequest httpReq
+    ) {
+        BookVoIngestJob job = ingestQueue.find(jobId);
+        if (job == null) throw new NotFoundException("Ingest job not found: " + jobId);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(DtoHelper.ok("OK", job, httpReq.getRequestURI()));
+    }
+
+    @Operation(
+            summary = "Add many books in one request",
+            description = "Validates every item, then inserts the valid ones in JDBC batches. "
+                    + "Invalid items and duplicate ISBNs are reported per item instead of failing the whole batch."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Batch processed; see per-item results",
+                    content = @Content(schema = @Schema(implementation = BookSwaggerBulkResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Empty batch or batch larger than book.bulk.max-items",
+                    content = @Content(schema = @Schema(implementation = VoidSwaggerResponse.class))
+            )
+    })
+    @PostMapping("/bulk")
+    public ResponseEntity<DtoResponse<BookVoBulkResponse>> createBulk(
+            @RequestBody(
+                    description = "Array of book payloads to create",
+                    required = true,
+                    content = @Content(
+                            array = @ArraySchema(schema = @Schema(implementation = BookVoCreateRequest.class)),
+                            examples = @ExampleObject(
+                                    name = "BulkCreateBookExample",
+                                    value = "[\n  {\n    \"title\": \"Clean Code\",\n    \"author\": \"Robert C. Martin\",\n    \"isbn\": \"9780132350884\",\n    \"publishedDate\": \"2008-08-01\"\n  },\n  {\n    \"title\": \"Refactoring\",\n    \"author\": \"Martin Fowler\",\n    \"isbn\": \"9780134757599\",\n    \"publishedDate\": \"2018-11-20\"\n  }\n]"
+                            )
+                    )
+            )
+            @org.springframework.web.bind.annotation.RequestBody List<BookVoCreateRequest> req,
+            HttpServletRequest httpReq
+    ) {
+        BookVoBulkResponse data = service.createBulk(req);
+        return ResponseEntity.ok(DtoHelper.ok("Bulk create processed", data, httpReq.getRequestURI()));
+    }
+
+    @Operation(
+            summary = "Get many books by ID",
+            description = "Resolves up to book.lookup.max-ids book IDs in one request and one database query. Found books "
+                    + "come back in request order (a repeated ID once); IDs with no book are listed in missing instead of failing the request."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "OK",
+                    content = @Content(schema = @Schema(implementation = BookSwaggerLookupResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "No IDs, a null ID, or more than book.lookup.max-ids IDs",
+                    content = @Content(schema = @Schema(implementation = VoidSwaggerResponse.class))
+            )
+    })
+    @PostMapping("/lookup")
+    public ResponseEntity<DtoResponse<BookVoLookupResponse>> lookup(
+            @RequestBody(
+                    description = "Book IDs to resolve",
+                    required = true,
+                    content = @Content(
+                            schema = @Schema(implementation = BookVoLookupRequest.class),
+                            examples = @ExampleObject(name = "LookupExample", value = "{\n  \"ids\": [3, 1, 42]\n}")
+                    )
+            )
+            @org.springframework.web.bind.annotation.RequestBody BookVoLookupRequest req,
+            HttpServletRequest httpReq
+    ) {
+        BookVoLookupResponse data = service.findByIds(req.getIds());
+        return ResponseEntity.ok(DtoHelper.ok("OK", data, httpReq.getRequestURI()));
+    }
+
+    @Operation(
+            summary = "Import books from CSV",
+            description = "Streams a CSV file (header: title,author,isbn,published_date) into a staging table with "
+                    + "PostgreSQL COPY, then upserts it into books by ISBN. Rows failing the same rules as a single "
+                    + "create are rejected and reported by line; when an ISBN repeats in the file the last row wins."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Import finished; see counts",
+                    content = @Content(schema = @Schema(implementation = BookSwaggerImportResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Missing file, missing header columns or malformed CSV",
+                    content = @Content(schema = @Schema(implementation = VoidSwaggerResponse.class))
+            )
+    })
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<DtoResponse<BookVoImportResponse>> importCsv(
+            @Parameter(description = "CSV file, UTF-8 encoded", required = true)
+            @RequestParam("file") MultipartFile file,
+            HttpServletRequest httpReq
+    ) throws IOException {
+        if (file.isEmpty()) throw new BadRequestException("CSV file is empty");
+        BookVoImportResponse data = importService.importCsv(file.getInputStream());
+        return ResponseEntity.ok(DtoHelper.ok("Import finished", data, httpReq.getRequestURI()));
+    }
+
+    @Operation(
+            summary = "Get books (paginated)",
+            description = "Returns one page of books ordered by ID wrapped in DtoResponse. "
+                    + "Send Accept: application/cbor or application/x-jackson-smile for a binary encoding of the same body. "
+                    + "Pass the returned nextCursor as 'after' to fetch the next page; nextCursor is absent on the last page."
     )
     @ApiResponses({
             @ApiResponse(
                     responseCode = "200",
                     description = "OK",
                     content = @Content(schema = @Schema(implementation = BookSwaggerListResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Page unchanged since the ETag sent in If-None-Match"
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid cursor or limit",
+                    content = @Content(schema = @Schema(implementation = VoidSwaggerResponse.class))
             )
     })
     @GetMapping
-    public ResponseEntity<DtoResponse<List<BookVoResponse>>> findAll(HttpServletRequest httpReq) {
-        List<BookVoResponse> data = service.findAll();
+    public ResponseEntity<DtoResponse<List<BookVoResponse>>> findAll(
+            @Parameter(description = "Opaque cursor taken from nextCursor of the previous page")
+            @RequestParam(required = false) String after,
+            @Parameter(description = "Page size, capped by book.pagination.max-limit", example = "50")
+            @RequestParam(required = false) Integer limit,
+            WebRequest webRequest,
+            HttpServletRequest httpReq
+    ) {
+        Long afterId = DtoCursor.decode(after);
+        if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && webRequest.checkNotModified(BookEtags.ofPage(service.findPageVersionTag(afterId, limit)))) {
+            return null;
+        }
+
+        BookVoPage page = service.findPage(afterId, limit);
+        return ResponseEntity.ok()
+                .eTag(BookEtags.ofPage(page.getVersionTag()))
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(DtoHelper.page(
+                        "OK", page.getItems(), DtoCursor.encode(page.getNextAfter()), page.getTotalEstimate(), httpReq.getRequestURI()));
+    }
+
+    @Operation(
+            summary = "Search books by title and author",
+            description = "Full-text search over title and author. q accepts web-search syntax: quoted phrases, "
+                    + "OR and -exclusion. Results are ranked by relevance, title matches first. "
+                    + "Pass the returned nextCursor as 'after' to fetch the next page."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "OK",
+                    content = @Content(schema = @Schema(implementation = BookSwaggerListResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Blank or too long query, invalid cursor or limit",
+                    content = @Content(schema = @Schema(implementation = VoidSwaggerResponse.class))
+            )
+    })
+    @GetMapping("/search")
+    public ResponseEntity<DtoResponse<List<BookVoResponse>>> search(
+            @Parameter(description = "Search terms; a missing or blank q is answered with 400", example = "clean code")
+            @RequestParam(required = false) String q,
+            @Parameter(description = "Opaque cursor taken from nextCursor of the previous page")
+            @RequestParam(required = false) String after,
+            @Parameter(description = "Page size, capped by book.pagination.max-limit", example = "50")
+            @RequestParam(required = false) Integer limit,
+            HttpServletRequest httpReq
+    ) {
+        BookVoPage page = service.search(q, DtoCursor.decodeOffset(after), limit);
+        return ResponseEntity.ok(DtoHelper.page(
+                "OK", page.getItems(), DtoCursor.encodeOffset(page.getNextAfter()), null, httpReq.getRequestURI()));
+    }
+
+    @Operation(
+            summary = "Autocomplete books by title and author",
+            description = "Suggestions for search-as-you-type, served from an in-memory index. Every word but the last "
+                    + "must match a whole title/author word; the last word is matched as a prefix. Case and accents are ignored."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "OK",
+                    content = @Content(schema = @Schema(implementation = BookSwaggerSuggestResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Too long prefix or invalid limit",
+                    content = @Content(schema = @Schema(implementation = VoidSwaggerResponse.class))
+            )
+    })
+    @GetMapping("/suggest")
+    public ResponseEntity<DtoResponse<List<BookVoSuggestion>>> suggest(
+            @Parameter(description = "Text typed so far", example = "clean co")
+            @RequestParam(required = false) String prefix,
+            @Parameter(description = "Maximum suggestions, capped by book.suggest.max-limit", example = "10")
+            @RequestParam(required = false) Integer limit,
+            HttpServletRequest httpReq
+    ) {
+        List<BookVoSuggestion> data = service.suggest(prefix, limit);
         return ResponseEntity.ok(DtoHelper.ok("OK", data, httpReq.getRequestURI()));
     }
 
+    @Operation(
+            summary = "Get a book by ISBN",
+            description = "Returns the book with the given ISBN. Concurrent lookups of the same ISBN share one query."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "OK",
+                    content = @Content(schema = @Schema(implementation = BookSwaggerResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "No book with this ISBN",
+                    content = @Content(schema = @Schema(implementation = VoidSwaggerResponse.class))
+            )
+    })
+    @GetMapping("/isbn/{isbn}")
+    public ResponseEntity<DtoResponse<BookVoResponse>> findByIsbn(
+            @Parameter(description = "ISBN", example = "9780132350884", required = true)
+            @PathVariable String isbn,
+            HttpServletRequest httpReq
+    ) {
+        BookVoResponse data = service.findByIsbn(isbn);
+        return bookResponse(data, negotiatedFormat(httpReq))
+                .cacheControl(CacheControl.noCache())
+                .body(DtoHelper.ok("OK", data, httpReq.getRequestURI()));
+    }
+
+    @Operation(
+            summary = "Export all books (NDJSON stream)",
+            description = "Streams every book ordered by ID as newline-delimited JSON, one BookVoResponse per line, "
+                    + "straight from a database cursor. Intended for bulk consumers; memory use does not grow with table size."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "NDJSON stream",
+                    content = @Content(mediaType = NDJSON, schema = @Schema(implementation = BookVoResponse.class))
+            )
+    })
+    @GetMapping(value = "/export", produces = NDJSON)
+    public void export(HttpServletResponse httpRes) throws IOException {
+        httpRes.setContentType(NDJSON);
+        httpRes.setCharacterEncoding("UTF-8");
+        OutputStream out = httpRes.getOutputStream();
+
+        try {
+            service.exportAll(book -> {
+                try {
+                    out.write(ndjsonWriter.writeValueAsBytes(book));
+                    out.write('\n');
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+            out.flush();
+        } catch (UncheckedIOException ex) {
+            // the client went away mid-stream; the cursor and transaction are already released
+            log.debug("Book export aborted by client: {}", ex.getCause().getMessage());
+        }
+    }
+
+    @Operation(
+            summary = "Stream book changes (Server-Sent Events)",
+            description = "Pushes one 'book' event per create, update or delete, with the change ID as the event id and "
+                    + "a BookVoChange as data. Reconnect with the Last-Event-ID header (or 'after') to resume without "
+                    + "gaps; a 'reset' event means the resume point is gone and the client should reload the book list."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Event stream",
+                    content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE, schema = @Schema(implementation = BookVoChange.class))
+            ),
+            @ApiResponse(
+                    responseCode = "429",
+                    description = "Subscriber limit book.changes.max-subscribers reached",
+                    content = @Content(schema = @Schema(implementation = VoidSwaggerResponse.class))
+            )
+    })
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter changes(
+            @Parameter(description = "Resume after this change ID; the Last-Event-ID header takes precedence")
+            @RequestParam(required = false) Long after,
+            @RequestHeader(value = LAST_EVENT_ID, required = false) String lastEventId
+    ) {
+        if (!changeFeed.isEnabled()) throw new NotFoundException("Change feed is disabled");
+        Long resumeAfter = after;
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            try {
+                resumeAfter = Long.parseLong(lastEventId.strip());
+            } catch (NumberFormatException ex) {
+                throw new BadRequestException("Last-Event-ID must be a change ID");
+            }
+        }
+        return changeFeed.subscribe(resumeAfter);
+    }
+
     @Operation(
             summary = "Get a book by ID",
-            description = "Returns a single book by its ID wrapped in DtoResponse."
+            description = "Returns a single book by its ID wrapped in DtoResponse. "
+                    + "Send Accept: application/cbor or application/x-jackson-smile for a binary encoding of the same body."
     )
     @ApiResponses({
             @ApiResponse(
@@ -108,6 +506,10 @@ public class BookRest {
                     description = "OK",
                     content = @Content(schema = @Schema(implementation = BookSwaggerResponse.class))
             ),
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Book unchanged since the ETag sent in If-None-Match"
+            ),
             @ApiResponse(
                     responseCode = "404",
                     description = "Book not found",
@@ -115,13 +517,61 @@ public class BookRest {
             )
     })
     @GetMapping("/{id}")
-    public ResponseEntity<DtoResponse<BookVoResponse>> findById(
+    public ResponseEntity<?> findById(
             @Parameter(description = "Book ID", example = "1", required = true)
             @PathVariable Long id,
+            WebRequest webRequest,
             HttpServletRequest httpReq
     ) {
+        MediaType format = negotiatedFormat(httpReq);
+        if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            // answered from the cache or a version-only lookup; the book itself is not loaded
+            Long version = service.findVersion(id);
+            if (version != null && webRequest.checkNotModified(BookEtags.ofVersion(version, format))) {
+                return null;
+            }
+        }
+
         BookVoResponse data = service.findById(id);
-        return ResponseEntity.ok(DtoHelper.ok("OK", data, httpReq.getRequestURI()));
+        ResponseEntity.BodyBuilder ok = bookResponse(data, format).cacheControl(CacheControl.noCache());
+        if (!MediaType.APPLICATION_JSON.equals(format)) {
+            return ok.body(DtoHelper.ok("OK", data, httpReq.getRequestURI()));
+        }
+
+        // the payload bytes come from BookJsonCache; only the envelope is written per request, with no mapper call
+        byte[] body = DtoJsonEnvelope.ok("OK", jsonCache.encode(data), Instant.now(), httpReq.getRequestURI());
+        return ok.contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    // the pre-encoded body is JSON only: a client preferring CBOR or Smile goes through the message converters. The
+    // chosen type is set on the response, so the body and its ETag always agree; null (neither JSON nor a binary type
+    // is acceptable) leaves the choice to the converters, which answer 406
+    private static MediaType negotiatedFormat(HttpServletRequest httpReq) {
+        String accept = httpReq.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null || accept.isBlank()) return MediaType.APPLICATION_JSON;
+        double json = 0;
+        double cbor = 0;
+        double smile = 0;
+        for (MediaType type : MediaType.parseMediaTypes(accept)) {
+            if (type.includes(MediaType.APPLICATION_JSON)) {
+                json = Math.max(json, type.getQualityValue());
+            } else if (type.isCompatibleWith(MediaType.APPLICATION_CBOR)) {
+                cbor = Math.max(cbor, type.getQualityValue());
+            } else if (type.isCompatibleWith(SMILE)) {
+                smile = Math.max(smile, type.getQualityValue());
+            }
+        }
+        if (json > 0 && json > Math.max(cbor, smile)) return MediaType.APPLICATION_JSON;
+        if (cbor == 0 && smile == 0) return null;
+        return smile > cbor ? SMILE : MediaType.APPLICATION_CBOR;
+    }
+
+    // a single book: the strong ETag of the negotiated representation, and Vary: Accept since that picks it
+    private static ResponseEntity.BodyBuilder bookResponse(BookVoResponse data, MediaType format) {
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok()
+                .eTag(BookEtags.ofVersion(data.getVersion(), format))
+                .varyBy(HttpHeaders.ACCEPT);
+        return format != null ? ok.contentType(format) : ok;
     }
 
     @Operation(
@@ -148,6 +598,11 @@ public class BookRest {
                     responseCode = "409",
                     description = "Duplicate/constraint error (e.g., ISBN already exists)",
                     content = @Content(schema = @Schema(implementation = VoidSwaggerResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "412",
+                    description = "If-Match does not match the current book version",
+                    content = @Content(schema = @Schema(implementation = VoidSwaggerResponse.class))
             )
     })
     @PutMapping("/{id}")
@@ -167,10 +622,12 @@ public class BookRest {
                     )
             )
             @org.springframework.web.bind.annotation.RequestBody BookVoUpdateRequest req,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             HttpServletRequest httpReq
     ) {
-        BookVoResponse data = service.update(id, req);
-        return ResponseEntity.ok(DtoHelper.ok("Book updated", data, httpReq.getRequestURI()));
+        BookVoResponse data = service.update(id, req, BookEtags.parseIfMatch(ifMatch));
+        return bookResponse(data, negotiatedFormat(httpReq))
+                .body(DtoHelper.ok("Book updated", data, httpReq.getRequestURI()));
     }
 
     @Operation(
@@ -192,12 +649,18 @@ public class BookRest {
                     responseCode = "409",
                     description = "Duplicate/constraint error (e.g., ISBN already exists)",
                     content = @Content(schema = @Schema(implementation = VoidSwaggerResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "412",
+                    description = "If-Match does not match the current book version",
+                    content = @Content(schema = @Schema(implementation = VoidSwaggerResponse.class))
             )
     })
     @PatchMapping("/{id}")
     public ResponseEntity<DtoResponse<BookVoResponse>> patch(
             @Parameter(description = "Book ID", example = "1", required = true)
             @PathVariable Long id,
+            @Valid
             @RequestBody(
                     description = "Partial update payload (any subset of fields)",
                     required = true,
@@ -210,10 +673,12 @@ public class BookRest {
                     )
             )
             @org.springframework.web.bind.annotation.RequestBody BookVoPatchRequest req,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             HttpServletRequest httpReq
     ) {
-        BookVoResponse data = service.patch(id, req);
-        return ResponseEntity.ok(DtoHelper.ok("Book patched", data, httpReq.getRequestURI()));
+        BookVoResponse data = service.patch(id, req, BookEtags.parseIfMatch(ifMatch));
+        return bookResponse(data, negotiatedFormat(httpReq))
+                .body(DtoHelper.ok("Book patched", data, httpReq.getRequestURI()));
     }
 
     @Operation(
@@ -230,15 +695,21 @@ public class BookRest {
                     responseCode = "404",
                     description = "Book not found",
                     content = @Content(schema = @Schema(implementation = VoidSwaggerResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "412",
+                    description = "If-Match does not match the current book version",
+                    content = @Content(schema = @Schema(implementation = VoidSwaggerResponse.class))
             )
     })
     @DeleteMapping("/{id}")
     public ResponseEntity<DtoResponse<Object>> delete(
             @Parameter(description = "Book ID", example = "1", required = true)
             @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             HttpServletRequest httpReq
     ) {
-        service.delete(id);
+        service.delete(id, BookEtags.parseIfMatch(ifMatch));
         return ResponseEntity.ok(DtoHelper.ok("Book deleted", null, httpReq.getRequestURI()));
     }
 }
@@ -1,40 +1,100 @@
 package dev.fakhrads.book.rest.advice;
 
+import dev.fakhrads.book.exception.BadRequestException;
 import dev.fakhrads.book.exception.NotFoundException;
+import dev.fakhrads.book.exception.PreconditionFailedException;
+import dev.fakhrads.book.exception.ServiceUnavailableException;
+import dev.fakhrads.book.exception.TooManyRequestsException;
 import dev.fakhrads.book.dto.DtoHelper;
 import dev.fakhrads.book.dto.DtoResponse;
+import dev.fakhrads.book.metrics.ErrorMetrics;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.validation.BindException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.async.AsyncRequestNotUsableException;
 
 @RestControllerAdvice
 public class RestAdvice {
 
+    private final ErrorMetrics errors;
+
+    public RestAdvice(ErrorMetrics errors) {
+        this.errors = errors;
+    }
+
     @ExceptionHandler(NotFoundException.class)
     public ResponseEntity<DtoResponse<Object>> handleNotFound(NotFoundException ex, HttpServletRequest req) {
+        errors.count(ex, HttpStatus.NOT_FOUND);
         return ResponseEntity.status(HttpStatus.NOT_FOUND)
                 .body(DtoHelper.fail(ex.getMessage(), null, req.getRequestURI()));
     }
 
     @ExceptionHandler({MethodArgumentNotValidException.class, BindException.class})
     public ResponseEntity<DtoResponse<Object>> handleValidation(Exception ex, HttpServletRequest req) {
+        errors.count(ex, HttpStatus.BAD_REQUEST);
         return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                 .body(DtoHelper.fail("Validation error", null, req.getRequestURI()));
     }
 
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<DtoResponse<Object>> handleBadRequest(BadRequestException ex, HttpServletRequest req) {
+        errors.count(ex, HttpStatus.BAD_REQUEST);
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(DtoHelper.fail(ex.getMessage(), null, req.getRequestURI()));
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<DtoResponse<Object>> handlePreconditionFailed(PreconditionFailedException ex, HttpServletRequest req) {
+        errors.count(ex, HttpStatus.PRECONDITION_FAILED);
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .body(DtoHelper.fail(ex.getMessage(), null, req.getRequestURI()));
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<DtoResponse<Object>> handleTooManyRequests(TooManyRequestsException ex, HttpServletRequest req) {
+        errors.count(ex, HttpStatus.TOO_MANY_REQUESTS);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(DtoHelper.fail(ex.getMessage(), null, req.getRequestURI()));
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<DtoResponse<Object>> handleServiceUnavailable(ServiceUnavailableException ex, HttpServletRequest req) {
+        errors.count(ex, HttpStatus.SERVICE_UNAVAILABLE);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(DtoHelper.fail(ex.getMessage(), null, req.getRequestURI()));
+    }
+
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<DtoResponse<Object>> handleOptimisticLock(ObjectOptimisticLockingFailureException ex, HttpServletRequest req) {
+        errors.count(ex, HttpStatus.PRECONDITION_FAILED);
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .body(DtoHelper.fail("Book was modified concurrently", null, req.getRequestURI()));
+    }
+
     @ExceptionHandler(DataIntegrityViolationException.class)
     public ResponseEntity<DtoResponse<Object>> handleConstraint(DataIntegrityViolationException ex, HttpServletRequest req) {
+        errors.count(ex, HttpStatus.CONFLICT);
         return ResponseEntity.status(HttpStatus.CONFLICT)
                 .body(DtoHelper.fail("Data constraint violation (maybe duplicate ISBN)", null, req.getRequestURI()));
     }
 
+    // the client closed a streaming response (SSE, export); there is nobody left to send an error body to
+    @ExceptionHandler(AsyncRequestNotUsableException.class)
+    public void handleClientGone(AsyncRequestNotUsableException ex) {
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<DtoResponse<Object>> handleAny(Exception ex, HttpServletRequest req) {
+        errors.count(ex, HttpStatus.INTERNAL_SERVER_ERROR);
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(DtoHelper.fail("Unexpected error", null, req.getRequestURI()));
     }
@@ -0,0 +1,36 @@
+package dev.fakhrads.book.routing;
+
+import java.util.function.Supplier;
+
+// Thread-bound override for read routing: inside a primary() scope read-only transactions are served by the primary
+// even when a replica is configured. Used for reads that must not be stale (cache fills) and by ReadYourWritesFilter
+// for a client's requests right after its own write. A no-op without a replica.
+public final class ReadRouting {
+
+    private static final ThreadLocal<Boolean> PRIMARY = new ThreadLocal<>();
+    private static final Scope NESTED = () -> {};
+
+    private ReadRouting() {}
+
+    public static Scope primary() {
+        if (primaryRequired()) return NESTED;
+        PRIMARY.set(Boolean.TRUE);
+        return PRIMARY::remove;
+    }
+
+    public static <T> T onPrimary(Supplier<T> action) {
+        try (Scope ignored = primary()) {
+            return action.get();
+        }
+    }
+
+    static boolean primaryRequired() {
+        return Boolean.TRUE.equals(PRIMARY.get());
+    }
+
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
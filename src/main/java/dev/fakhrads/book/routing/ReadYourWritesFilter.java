@@ -0,0 +1,80 @@
+package dev.fakhrads.book.routing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Read-your-writes over a replica: every write request stamps a short-lived cookie with its time, and reads that
+// carry a stamp younger than read-your-writes-ms are served by the primary, so a client never reads past its own
+// write. The state travels with the client, which keeps it correct across several application instances.
+@Component
+@ConditionalOnProperty(name = "book.db.replica.enabled", havingValue = "true")
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String COOKIE = "book_rw";
+
+    // POST only because the request body carries the query; these change nothing
+    private static final Set<String> READ_POSTS = Set.of("/api/books/lookup");
+
+    private final long windowMs;
+
+    public ReadYourWritesFilter(@Value("${book.db.replica.read-your-writes-ms:5000}") long windowMs) {
+        this.windowMs = windowMs;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String method = request.getMethod();
+        boolean read = "GET".equals(method) || "HEAD".equals(method)
+                || "POST".equals(method) && READ_POSTS.contains(request.getRequestURI());
+        if (!read) {
+            // set up front, while headers can still be written; a failed write only costs a few primary reads
+            Cookie stamp = new Cookie(COOKIE, Long.toString(System.currentTimeMillis()));
+            stamp.setPath("/api");
+            stamp.setHttpOnly(true);
+            stamp.setMaxAge((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(windowMs + 999)));
+            response.addCookie(stamp);
+            chain.doFilter(request, response);
+            return;
+        }
+
+        if (!wroteRecently(request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        try (ReadRouting.Scope ignored = ReadRouting.primary()) {
+            chain.doFilter(request, response);
+        }
+    }
+
+    private boolean wroteRecently(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) return false;
+        for (Cookie cookie : cookies) {
+            if (!COOKIE.equals(cookie.getName())) continue;
+            try {
+                long age = System.currentTimeMillis() - Long.parseLong(cookie.getValue());
+                return age >= 0 && age < windowMs;
+            } catch (NumberFormatException ex) {
+                return false;
+            }
+        }
+        return false;
+    }
+}
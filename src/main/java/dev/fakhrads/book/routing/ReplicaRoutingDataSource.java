@@ -0,0 +1,106 @@
+package dev.fakhrads.book.routing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Sends read-only transactions to the replica pool and everything else to the primary. The connection is fetched
+// lazily (on the first statement), by which point the transaction manager has marked it read-only; that flag is
+// what selects the replica. A read still goes to the primary when the replica lags more than max-lag-ms, failed its
+// last lag check or its checkout, or when ReadRouting requires the primary for the current thread.
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    // 0 when everything received has been replayed (or the server is not a standby at all)
+    private static final String LAG_SQL = "select case when not pg_is_in_recovery() "
+            + "or pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0 "
+            + "else coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()) * 1000, 0) end";
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final long maxLagMs;
+    private final ScheduledExecutorService lagChecker;
+
+    private volatile boolean replicaUsable;
+    private volatile long replicaLagMs = -1;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, long maxLagMs, long lagCheckIntervalMs) {
+        super(primary);
+        this.primary = primary;
+        this.replica = replica;
+        this.maxLagMs = maxLagMs;
+        setReadOnlyDataSource(new DelegatingDataSource(primary) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return readConnection();
+            }
+        });
+        this.lagChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "book-replica-lag");
+            t.setDaemon(true);
+            return t;
+        });
+        checkLag();
+        lagChecker.scheduleWithFixedDelay(this::checkLag, lagCheckIntervalMs, lagCheckIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isReplicaUsable() { return replicaUsable; }
+    public long getReplicaLagMs() { return replicaLagMs; }
+
+    private Connection readConnection() throws SQLException {
+        if (!replicaUsable || ReadRouting.primaryRequired()) return primary.getConnection();
+        try {
+            return replica.getConnection();
+        } catch (SQLException ex) {
+            markReplica(false, -1, ex);
+            return primary.getConnection();
+        }
+    }
+
+    void checkLag() {
+        try (Connection c = replica.getConnection(); Statement st = c.createStatement()) {
+            st.setQueryTimeout(5);
+            try (ResultSet rs = st.executeQuery(LAG_SQL)) {
+                rs.next();
+                long lag = (long) rs.getDouble(1);
+                markReplica(lag <= maxLagMs, lag, null);
+            }
+        } catch (SQLException | RuntimeException ex) {
+            markReplica(false, -1, ex);
+        }
+    }
+
+    private void markReplica(boolean usable, long lagMs, Exception cause) {
+        replicaLagMs = lagMs;
+        if (usable == replicaUsable) return;
+        replicaUsable = usable;
+        if (usable) {
+            log.info("Replica in rotation (lag {} ms)", lagMs);
+        } else if (cause != null) {
+            log.warn("Replica out of rotation, reads go to the primary: {}", cause.toString());
+        } else {
+            log.warn("Replica out of rotation, lag {} ms exceeds {} ms; reads go to the primary", lagMs, maxLagMs);
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        lagChecker.shutdownNow();
+        try {
+            if (replica instanceof AutoCloseable closeable) closeable.close();
+        } finally {
+            if (primary instanceof AutoCloseable closeable) closeable.close();
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package dev.fakhrads.book.service;
+
+import dev.fakhrads.book.vo.BookVoImportResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface BookImportService {
+    BookVoImportResponse importCsv(InputStream csv) throws IOException;
+}
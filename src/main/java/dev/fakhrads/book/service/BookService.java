@@ -3,12 +3,21 @@ package dev.fakhrads.book.service;
 import dev.fakhrads.book.vo.*;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface BookService {
     BookVoResponse create(BookVoCreateRequest req);
-    List<BookVoResponse> findAll();
+    BookVoBulkResponse createBulk(List<BookVoCreateRequest> reqs);
+    BookVoPage findPage(Long afterId, Integer limit);
+    String findPageVersionTag(Long afterId, Integer limit);
+    BookVoPage search(String query, Long offset, Integer limit);
+    List<BookVoSuggestion> suggest(String prefix, Integer limit);
     BookVoResponse findById(Long id);
-    BookVoResponse update(Long id, BookVoUpdateRequest req);
-    BookVoResponse patch(Long id, BookVoPatchRequest req);
-    void delete(Long id);
+    BookVoResponse findByIsbn(String isbn);
+    BookVoLookupResponse findByIds(List<Long> ids);
+    Long findVersion(Long id);
+    long exportAll(Consumer<BookVoResponse> sink);
+    BookVoResponse update(Long id, BookVoUpdateRequest req, Long expectedVersion);
+    BookVoResponse patch(Long id, BookVoPatchRequest req, Long expectedVersion);
+    void delete(Long id, Long expectedVersion);
 }
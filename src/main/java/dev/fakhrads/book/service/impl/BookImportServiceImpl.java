@@ -0,0 +1,174 @@
+package dev.fakhrads.book.service.impl;
+
+import dev.fakhrads.book.cache.BookCache;
+import dev.fakhrads.book.dao.BookImportDao;
+import dev.fakhrads.book.entity.Book;
+import dev.fakhrads.book.exception.BadRequestException;
+import dev.fakhrads.book.service.BookImportService;
+import dev.fakhrads.book.suggest.BookSuggestIndex;
+import dev.fakhrads.book.vo.BookVoCreateRequest;
+import dev.fakhrads.book.vo.BookVoImportError;
+import dev.fakhrads.book.vo.BookVoImportResponse;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+@Service
+public class BookImportServiceImpl implements BookImportService {
+
+    private final BookImportDao dao;
+    private final BookCache cache;
+    private final BookSuggestIndex suggestIndex;
+    private final Validator validator;
+    private final int maxReportedErrors;
+    private final boolean sharded;
+
+    public BookImportServiceImpl(
+            BookImportDao dao,
+            BookCache cache,
+            BookSuggestIndex suggestIndex,
+            Validator validator,
+            @Value("${book.import.max-reported-errors:100}") int maxReportedErrors,
+            @Value("${book.shards.enabled:false}") boolean sharded
+    ) {
+        this.dao = dao;
+        this.cache = cache;
+        this.suggestIndex = suggestIndex;
+        this.validator = validator;
+        this.maxReportedErrors = maxReportedErrors;
+        this.sharded = sharded;
+    }
+
+    @Override
+    @Transactional(rollbackFor = IOException.class)
+    public BookVoImportResponse importCsv(InputStream csv) throws IOException {
+        // the COPY + merge runs against the books table of the main database; sharded books go through bulk create
+        if (sharded) throw new BadRequestException("CSV import is not available in sharded mode; use POST /api/books/bulk");
+        CsvRecordReader reader = new CsvRecordReader(
+                new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8)));
+        List<String> header = reader.next();
+        if (header == null) throw new BadRequestException("CSV file is empty");
+
+        ValidRows rows = new ValidRows(reader, resolveColumns(header));
+        dao.createStage();
+        try {
+            dao.copyToStage(rows);
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+
+        BookVoImportResponse result = dao.mergeStage();
+        if (result.getUpdated() > 0) {
+            cache.clearAfterCommit();
+        }
+        if (result.getInserted() > 0 || result.getUpdated() > 0) {
+            suggestIndex.rebuildAfterCommit();
+        }
+        result.setRejected(rows.rejected);
+        result.setErrors(rows.errors);
+        return result;
+    }
+
+    private int[] resolveColumns(List<String> header) {
+        int[] columns = {-1, -1, -1, -1};
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT);
+            switch (name) {
+                case "title" -> columns[0] = i;
+                case "author" -> columns[1] = i;
+                case "isbn" -> columns[2] = i;
+                case "published_date", "publisheddate" -> columns[3] = i;
+                default -> { }
+            }
+        }
+        if (columns[0] < 0 || columns[1] < 0 || columns[2] < 0) {
+            throw new BadRequestException("CSV header must contain title, author and isbn columns");
+        }
+        return columns;
+    }
+
+    private final class ValidRows implements Iterator<Book> {
+
+        private final CsvRecordReader reader;
+        private final int[] columns;
+        private final List<BookVoImportError> errors = new ArrayList<>();
+        private long rejected;
+        private Book next;
+
+        private ValidRows(CsvRecordReader reader, int[] columns) {
+            this.reader = reader;
+            this.columns = columns;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                try {
+                    next = advance();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Book next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            Book book = next;
+            next = null;
+            return book;
+        }
+
+        private Book advance() throws IOException {
+            List<String> record;
+            while ((record = reader.next()) != null) {
+                String problem = null;
+                BookVoCreateRequest req = new BookVoCreateRequest();
+                req.setTitle(field(record, columns[0]));
+                req.setAuthor(field(record, columns[1]));
+                req.setIsbn(field(record, columns[2]));
+
+                String date = field(record, columns[3]);
+                if (date != null && !date.isBlank()) {
+                    try {
+                        req.setPublishedDate(LocalDate.parse(date.trim()));
+                    } catch (DateTimeParseException ex) {
+                        problem = "published_date must be yyyy-MM-dd";
+                    }
+                }
+                if (problem == null) {
+                    problem = Violations.describe(validator.validate(req));
+                }
+                if (problem == null) {
+                    return new Book(null, req.getTitle(), req.getAuthor(), req.getIsbn(), req.getPublishedDate());
+                }
+
+                rejected++;
+                if (errors.size() < maxReportedErrors) {
+                    errors.add(new BookVoImportError(reader.recordLine(), problem));
+                }
+            }
+            return null;
+        }
+
+        private String field(List<String> record, int column) {
+            return column >= 0 && column < record.size() ? record.get(column) : null;
+        }
+    }
+}
@@ -1,85 +1,432 @@
 package dev.fakhrads.book.service.impl;
 
+import dev.fakhrads.book.cache.BookCache;
+import dev.fakhrads.book.dao.BookChangeDao;
 import dev.fakhrads.book.dao.BookDao;
 import dev.fakhrads.book.vo.*;
 import dev.fakhrads.book.entity.Book;
+import dev.fakhrads.book.exception.BadRequestException;
 import dev.fakhrads.book.exception.NotFoundException;
+import dev.fakhrads.book.exception.PreconditionFailedException;
+import dev.fakhrads.book.routing.ReadRouting;
 import dev.fakhrads.book.service.BookService;
+import dev.fakhrads.book.suggest.BookSuggestIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class BookServiceImpl implements BookService {
 
+    private static final Logger log = LoggerFactory.getLogger(BookServiceImpl.class);
+
     private final BookDao dao;
+    private final BookChangeDao changeDao;
+    private final BookCache cache;
+    private final BookSuggestIndex suggestIndex;
+    private final Validator validator;
+    private final TransactionTemplate writeTx;
+    private final TransactionTemplate readTx;
+    private final int defaultLimit;
+    private final int maxLimit;
+    private final int exportFetchSize;
+    private final int bulkMaxItems;
+    private final int bulkTransactionSize;
+    private final int searchMaxQueryLength;
+    private final int suggestDefaultLimit;
+    private final int suggestMaxLimit;
+    private final int lookupMaxIds;
+    private final MeterRegistry meterRegistry;
 
-    public BookServiceImpl(BookDao dao) {
+    public BookServiceImpl(
+            BookDao dao,
+            BookChangeDao changeDao,
+            BookCache cache,
+            BookSuggestIndex suggestIndex,
+            Validator validator,
+            PlatformTransactionManager txManager,
+            MeterRegistry meterRegistry,
+            @Value("${book.pagination.default-limit:50}") int defaultLimit,
+            @Value("${book.pagination.max-limit:500}") int maxLimit,
+            @Value("${book.export.fetch-size:1000}") int exportFetchSize,
+            @Value("${book.bulk.max-items:5000}") int bulkMaxItems,
+            @Value("${book.bulk.transaction-size:500}") int bulkTransactionSize,
+            @Value("${book.search.max-query-length:200}") int searchMaxQueryLength,
+            @Value("${book.suggest.default-limit:10}") int suggestDefaultLimit,
+            @Value("${book.suggest.max-limit:50}") int suggestMaxLimit,
+            @Value("${book.lookup.max-ids:500}") int lookupMaxIds
+    ) {
         this.dao = dao;
+        this.changeDao = changeDao;
+        this.cache = cache;
+        this.suggestIndex = suggestIndex;
+        this.validator = validator;
+        this.writeTx = new TransactionTemplate(txManager);
+        this.readTx = new TransactionTemplate(txManager);
+        this.readTx.setReadOnly(true);
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+        this.exportFetchSize = exportFetchSize;
+        this.bulkMaxItems = bulkMaxItems;
+        this.bulkTransactionSize = bulkTransactionSize;
+        this.searchMaxQueryLength = searchMaxQueryLength;
+        this.suggestDefaultLimit = suggestDefaultLimit;
+        this.suggestMaxLimit = suggestMaxLimit;
+        this.lookupMaxIds = lookupMaxIds;
+        this.meterRegistry = meterRegistry;
     }
 
     @Override
     @Transactional
     public BookVoResponse create(BookVoCreateRequest req) {
-        Book book = new Book();
-        book.setTitle(req.getTitle());
-        book.setAuthor(req.getAuthor());
-        book.setIsbn(req.getIsbn());
-        book.setPublishedDate(req.getPublishedDate());
+        Book saved = dao.save(toEntity(req));
+        BookVoResponse created = toResponse(saved);
+        changeDao.append(BookVoChangeType.CREATE, created.getId(), created.getVersion());
+        suggestIndex.upsertAfterCommit(created);
+        cache.evictIsbnLookupsAfterCommit();
+        return created;
+    }
+
+    @Override
+    public BookVoBulkResponse createBulk(List<BookVoCreateRequest> reqs) {
+        if (reqs == null || reqs.isEmpty()) throw new BadRequestException("Bulk payload must contain at least one book");
+        if (reqs.size() > bulkMaxItems) throw new BadRequestException("Bulk payload exceeds " + bulkMaxItems + " books");
+
+        BookVoBulkItemResult[] results = new BookVoBulkItemResult[reqs.size()];
+        List<Integer> accepted = new ArrayList<>(reqs.size());
+        Set<String> seenIsbns = new HashSet<>();
+
+        for (int i = 0; i < reqs.size(); i++) {
+            BookVoCreateRequest req = reqs.get(i);
+            String violation = validate(req);
+            if (violation != null) {
+                results[i] = new BookVoBulkItemResult(i, BookVoBulkStatus.INVALID, null, req == null ? null : req.getIsbn(), violation);
+            } else if (!seenIsbns.add(req.getIsbn())) {
+                results[i] = duplicate(i, req.getIsbn(), "ISBN repeated within the batch");
+            } else {
+                accepted.add(i);
+            }
+        }
+
+        for (int from = 0; from < accepted.size(); from += bulkTransactionSize) {
+            List<Integer> chunk = accepted.subList(from, Math.min(from + bulkTransactionSize, accepted.size()));
+            try {
+                writeTx.executeWithoutResult(status -> insertChunk(reqs, chunk, results));
+            } catch (DataIntegrityViolationException ex) {
+                // a concurrent writer claimed an ISBN after the pre-check; isolate the conflict row by row
+                for (int i : chunk) insertOne(reqs.get(i), i, results);
+            }
+        }
+
+        int created = (int) Arrays.stream(results).filter(r -> r.getStatus() == BookVoBulkStatus.CREATED).count();
+        return new BookVoBulkResponse(created, results.length - created, List.of(results));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookVoPage findPage(Long afterId, Integer limit) {
+        int size = resolveLimit(limit);
+        List<BookVoResponse> rows = dao.findPage(afterId, size + 1);
+
+        boolean hasMore = rows.size() > size;
+        List<BookVoResponse> items = hasMore ? rows.subList(0, size) : rows;
+        Long nextAfter = hasMore ? items.get(items.size() - 1).getId() : null;
+        String versionTag = VersionTags.ofPage(
+                items.stream().map(b -> new long[]{b.getId(), b.getVersion()}).toList(), hasMore);
 
-        Book saved = dao.save(book);
-        return toResponse(saved);
+        return new BookVoPage(items, nextAfter, dao.estimateCount(), versionTag);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<BookVoResponse> findAll() {
-        return dao.findAll().stream().map(this::toResponse).toList();
+    public String findPageVersionTag(Long afterId, Integer limit) {
+        int size = resolveLimit(limit);
+        List<long[]> rows = dao.findPageVersions(afterId, size + 1);
+        boolean hasMore = rows.size() > size;
+        return VersionTags.ofPage(hasMore ? rows.subList(0, size) : rows, hasMore);
     }
 
     @Override
     @Transactional(readOnly = true)
+    public BookVoPage search(String query, Long offset, Integer limit) {
+        if (query == null || query.isBlank()) throw new BadRequestException("q must not be blank");
+        if (query.length() > searchMaxQueryLength) {
+            throw new BadRequestException("q must be at most " + searchMaxQueryLength + " characters");
+        }
+        int size = resolveLimit(limit);
+        long start = offset == null ? 0 : offset;
+
+        List<BookVoResponse> rows = dao.search(query.strip(), start, size + 1);
+        boolean hasMore = rows.size() > size;
+        List<BookVoResponse> items = hasMore ? rows.subList(0, size) : rows;
+        return new BookVoPage(items, hasMore ? start + size : null, null, null);
+    }
+
+    @Override
+    public List<BookVoSuggestion> suggest(String prefix, Integer limit) {
+        if (prefix == null || prefix.isBlank()) return List.of();
+        if (prefix.length() > searchMaxQueryLength) {
+            throw new BadRequestException("prefix must be at most " + searchMaxQueryLength + " characters");
+        }
+        int size = limit == null ? suggestDefaultLimit : limit;
+        if (size < 1) throw new BadRequestException("limit must be at least 1");
+        return suggestIndex.suggest(prefix, Math.min(size, suggestMaxLimit));
+    }
+
+    @Override
     public BookVoResponse findById(Long id) {
-        Book book = dao.findById(id).orElseThrow(() -> new NotFoundException("Book not found: " + id));
-        return toResponse(book);
+        // no transaction on a cache hit; a miss loads in its own read-only transaction
+        BookVoResponse book = cache.get(id, this::loadById);
+        if (book == null) throw new NotFoundException("Book not found: " + id);
+        return book;
+    }
+
+    @Override
+    public BookVoResponse findByIsbn(String isbn) {
+        if (isbn == null || isbn.isBlank()) throw new BadRequestException("isbn must not be blank");
+        BookVoResponse book = cache.byIsbn(isbn.strip(), key -> readTx.execute(status -> dao.findByIsbn(key).orElse(null)));
+        if (book == null) throw new NotFoundException("Book not found: ISBN " + isbn);
+        return book;
+    }
+
+    // cached books are served from the cache; the rest are read with one query, and only when there are any. Rows
+    // read here are not put into the cache: a batch fill could not be ordered against the evictions of writes.
+    @Override
+    public BookVoLookupResponse findByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) throw new BadRequestException("ids must contain at least one book id");
+        if (ids.size() > lookupMaxIds) throw new BadRequestException("ids exceeds " + lookupMaxIds + " book ids");
+        // not ids.contains(null): immutable lists (List.of) throw on a null probe
+        if (ids.stream().anyMatch(Objects::isNull)) throw new BadRequestException("ids must not contain null");
+
+        Set<Long> requested = new LinkedHashSet<>(ids);
+        Map<Long, BookVoResponse> found = new HashMap<>(requested.size() * 2);
+        List<Long> uncached = new ArrayList<>();
+        for (Long id : requested) {
+            BookVoResponse cached = cache.peek(id);
+            if (cached != null) found.put(id, cached);
+            else uncached.add(id);
+        }
+        if (!uncached.isEmpty()) {
+            readTx.executeWithoutResult(status -> dao.findAllById(uncached).forEach(b -> found.put(b.getId(), b)));
+        }
+
+        List<BookVoResponse> items = new ArrayList<>(found.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : requested) {
+            BookVoResponse book = found.get(id);
+            if (book != null) items.add(book);
+            else missing.add(id);
+        }
+        return new BookVoLookupResponse(items, missing);
+    }
+
+    @Override
+    public Long findVersion(Long id) {
+        return cache.version(id, key -> readTx.execute(status -> dao.findVersionById(key).orElse(null)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportAll(Consumer<BookVoResponse> sink) {
+        long started = System.nanoTime();
+        long rows = 0;
+        boolean completed = false;
+        try (Stream<BookVoResponse> stream = dao.streamAll(exportFetchSize)) {
+            Iterator<BookVoResponse> it = stream.iterator();
+            while (it.hasNext()) {
+                sink.accept(it.next());
+                rows++;
+            }
+            completed = true;
+        } finally {
+            long elapsed = System.nanoTime() - started;
+            double seconds = Math.max(elapsed / 1_000_000_000.0, 0.001);
+            String outcome = completed ? "completed" : "aborted";
+            recordExport(outcome, rows, elapsed, rows / seconds);
+            log.info("Book export {}: rows={} seconds={} rowsPerSec={}",
+                    outcome, rows, String.format("%.3f", seconds), Math.round(rows / seconds));
+        }
+        return rows;
+    }
+
+    // book.export.rows counts rows streamed, book.export times whole exports and book.export.throughput keeps the
+    // rows/sec of each one; all tagged with the outcome, since an aborted export (client gone) is not a slow one
+    private void recordExport(String outcome, long rows, long elapsedNanos, double rowsPerSecond) {
+        Counter.builder("book.export.rows")
+                .description("Rows written by GET /api/books/export")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment(rows);
+        Timer.builder("book.export")
+                .description("Duration of GET /api/books/export")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("book.export.throughput")
+                .description("Rows per second of each export")
+                .baseUnit("rows/s")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(rowsPerSecond);
     }
 
     @Override
     @Transactional
-    public BookVoResponse update(Long id, BookVoUpdateRequest req) {
-        Book book = dao.findById(id).orElseThrow(() -> new NotFoundException("Book not found: " + id));
-        book.setTitle(req.getTitle());
-        book.setAuthor(req.getAuthor());
-        book.setIsbn(req.getIsbn());
-        book.setPublishedDate(req.getPublishedDate());
+    public BookVoResponse update(Long id, BookVoUpdateRequest req, Long expectedVersion) {
+        Book values = new Book();
+        values.setTitle(req.getTitle());
+        values.setAuthor(req.getAuthor());
+        values.setIsbn(req.getIsbn());
+        values.setPublishedDate(req.getPublishedDate());
 
-        Book saved = dao.save(book);
-        return toResponse(saved);
+        BookVoResponse updated = dao.update(id, expectedVersion, values)
+                .orElseThrow(() -> writeMissed(id, expectedVersion));
+        changeDao.append(BookVoChangeType.UPDATE, id, updated.getVersion());
+        cache.evictAfterCommit(id);
+        suggestIndex.upsertAfterCommit(updated);
+        return updated;
     }
 
     @Override
     @Transactional
-    public BookVoResponse patch(Long id, BookVoPatchRequest req) {
-        Book book = dao.findById(id).orElseThrow(() -> new NotFoundException("Book not found: " + id));
+    public BookVoResponse patch(Long id, BookVoPatchRequest req, Long expectedVersion) {
+        Book changes = new Book();
+        changes.setTitle(req.getTitle());
+        changes.setAuthor(req.getAuthor());
+        changes.setIsbn(req.getIsbn());
+        changes.setPublishedDate(req.getPublishedDate());
 
-        if (req.getTitle() != null) book.setTitle(req.getTitle());
-        if (req.getAuthor() != null) book.setAuthor(req.getAuthor());
-        if (req.getIsbn() != null) book.setIsbn(req.getIsbn());
-        if (req.getPublishedDate() != null) book.setPublishedDate(req.getPublishedDate());
+        if (changes.getTitle() == null && changes.getAuthor() == null
+                && changes.getIsbn() == null && changes.getPublishedDate() == null) {
+            BookVoResponse current = findById(id);
+            if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+                throw new PreconditionFailedException("Book version does not match If-Match: " + id);
+            }
+            return current;
+        }
 
-        Book saved = dao.save(book);
-        return toResponse(saved);
+        BookVoResponse patched = dao.patch(id, expectedVersion, changes)
+                .orElseThrow(() -> writeMissed(id, expectedVersion));
+        changeDao.append(BookVoChangeType.UPDATE, id, patched.getVersion());
+        cache.evictAfterCommit(id);
+        suggestIndex.upsertAfterCommit(patched);
+        return patched;
     }
 
     @Override
     @Transactional
-    public void delete(Long id) {
-        if (!dao.existsById(id)) throw new NotFoundException("Book not found: " + id);
-        dao.deleteById(id);
+    public void delete(Long id, Long expectedVersion) {
+        if (dao.delete(id, expectedVersion) == 0) throw writeMissed(id, expectedVersion);
+        changeDao.append(BookVoChangeType.DELETE, id, null);
+        cache.evictAfterCommit(id);
+        suggestIndex.removeAfterCommit(id);
+    }
+
+    // only reached when the conditional statement matched no row; an unconditional write can only miss on a
+    // missing id, so the extra existence probe is paid solely on the If-Match failure path
+    private RuntimeException writeMissed(Long id, Long expectedVersion) {
+        if (expectedVersion != null && dao.existsById(id)) {
+            return new PreconditionFailedException("Book version does not match If-Match: " + id);
+        }
+        return new NotFoundException("Book not found: " + id);
+    }
+
+    // cache fills read the primary: a row loaded from a lagging replica would outlive the eviction of its write
+    private BookVoResponse loadById(Long id) {
+        return ReadRouting.onPrimary(() -> readTx.execute(status -> dao.findById(id).orElse(null)));
+    }
+
+    private void insertChunk(List<BookVoCreateRequest> reqs, List<Integer> chunk, BookVoBulkItemResult[] results) {
+        Set<String> existing = dao.findExistingIsbns(chunk.stream().map(i -> reqs.get(i).getIsbn()).toList());
+
+        List<Integer> inserted = new ArrayList<>(chunk.size());
+        List<Book> books = new ArrayList<>(chunk.size());
+        for (int i : chunk) {
+            BookVoCreateRequest req = reqs.get(i);
+            if (existing.contains(req.getIsbn())) {
+                results[i] = duplicate(i, req.getIsbn(), "ISBN already exists");
+            } else {
+                inserted.add(i);
+                books.add(toEntity(req));
+            }
+        }
+
+        dao.saveAll(books);
+        cache.evictIsbnLookupsAfterCommit();
+        changeDao.appendAll(BookVoChangeType.CREATE,
+                books.stream().map(Book::getId).toList(), books.stream().map(Book::getVersion).toList());
+        for (int k = 0; k < books.size(); k++) {
+            Book b = books.get(k);
+            suggestIndex.upsertAfterCommit(toResponse(b));
+            results[inserted.get(k)] = new BookVoBulkItemResult(inserted.get(k), BookVoBulkStatus.CREATED, b.getId(), b.getIsbn(), null);
+        }
+    }
+
+    private void insertOne(BookVoCreateRequest req, int index, BookVoBulkItemResult[] results) {
+        try {
+            Long id = writeTx.execute(status -> {
+                Book book = toEntity(req);
+                dao.saveAll(List.of(book));
+                changeDao.append(BookVoChangeType.CREATE, book.getId(), book.getVersion());
+                suggestIndex.upsertAfterCommit(toResponse(book));
+                cache.evictIsbnLookupsAfterCommit();
+                return book.getId();
+            });
+            results[index] = new BookVoBulkItemResult(index, BookVoBulkStatus.CREATED, id, req.getIsbn(), null);
+        } catch (DataIntegrityViolationException ex) {
+            results[index] = duplicate(index, req.getIsbn(), "ISBN already exists");
+        }
+    }
+
+    private BookVoBulkItemResult duplicate(int index, String isbn, String message) {
+        return new BookVoBulkItemResult(index, BookVoBulkStatus.DUPLICATE_ISBN, null, isbn, message);
+    }
+
+    private String validate(BookVoCreateRequest req) {
+        if (req == null) return "Book payload must not be null";
+        return Violations.describe(validator.validate(req));
+    }
+
+    private int resolveLimit(Integer limit) {
+        if (limit == null) return defaultLimit;
+        if (limit < 1) throw new BadRequestException("limit must be at least 1");
+        return Math.min(limit, maxLimit);
+    }
+
+    private Book toEntity(BookVoCreateRequest req) {
+        Book book = new Book();
+        book.setTitle(req.getTitle());
+        book.setAuthor(req.getAuthor());
+        book.setIsbn(req.getIsbn());
+        book.setPublishedDate(req.getPublishedDate());
+        return book;
     }
 
     private BookVoResponse toResponse(Book b) {
-        return new BookVoResponse(b.getId(), b.getTitle(), b.getAuthor(), b.getIsbn(), b.getPublishedDate());
+        return new BookVoResponse(b.getId(), b.getTitle(), b.getAuthor(), b.getIsbn(), b.getPublishedDate(), b.getVersion());
     }
 }
@@ -0,0 +1,96 @@
+package dev.fakhrads.book.service.impl;
+
+import dev.fakhrads.book.exception.BadRequestException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal RFC 4180 reader: quoted fields, doubled quotes and line breaks inside quotes.
+ * Reads one record at a time so arbitrarily large uploads are never held in memory.
+ */
+class CsvRecordReader {
+
+    private static final int MAX_FIELD_LENGTH = 10_000;
+
+    private final Reader in;
+    private int pushback = -2;
+    private long lineNo = 1;
+    private long recordLine;
+
+    CsvRecordReader(Reader in) {
+        this.in = in;
+    }
+
+    long recordLine() {
+        return recordLine;
+    }
+
+    List<String> next() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean inQuotes = false;
+        boolean quoted = false;
+        boolean any = false;
+        recordLine = lineNo;
+
+        int c;
+        while ((c = read()) != -1) {
+            any = true;
+            if (field.length() > MAX_FIELD_LENGTH) {
+                throw new BadRequestException("Malformed CSV: field too long near line " + recordLine);
+            }
+            if (inQuotes) {
+                if (c == '"') {
+                    int n = read();
+                    if (n == '"') {
+                        field.append('"');
+                    } else {
+                        inQuotes = false;
+                        pushback = n;
+                    }
+                } else {
+                    if (c == '\n') lineNo++;
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty() && !quoted) {
+                inQuotes = true;
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                quoted = false;
+            } else if (c == '\n') {
+                lineNo++;
+                if (fields.isEmpty() && field.isEmpty() && !quoted) {
+                    // blank line
+                    recordLine = lineNo;
+                    any = false;
+                    continue;
+                }
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+
+        if (inQuotes) {
+            throw new BadRequestException("Malformed CSV: unterminated quote starting on line " + recordLine);
+        }
+        if (!any) return null;
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private int read() throws IOException {
+        if (pushback != -2) {
+            int c = pushback;
+            pushback = -2;
+            return c;
+        }
+        return in.read();
+    }
+}
@@ -0,0 +1,27 @@
+package dev.fakhrads.book.service.impl;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+final class VersionTags {
+
+    private VersionTags() {}
+
+    // fingerprint of a page: the (id, version) of every row plus whether a next page exists
+    static String ofPage(List<long[]> idVersions, boolean hasMore) {
+        ByteBuffer buf = ByteBuffer.allocate(idVersions.size() * 16 + 1);
+        for (long[] row : idVersions) {
+            buf.putLong(row[0]).putLong(row[1]);
+        }
+        buf.put((byte) (hasMore ? 1 : 0));
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(buf.array());
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package dev.fakhrads.book.service.impl;
+
+import jakarta.validation.ConstraintViolation;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+final class Violations {
+
+    private Violations() {}
+
+    static <T> String describe(Set<ConstraintViolation<T>> violations) {
+        if (violations.isEmpty()) return null;
+        return violations.stream()
+                .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+}
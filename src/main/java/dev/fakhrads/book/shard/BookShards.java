@@ -0,0 +1,99 @@
+package dev.fakhrads.book.shard;
+
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// The books databases of sharded mode, in shard order. A book id carries its shard: id = sequence value * SLOTS +
+// shard, each shard drawing sequence values from its own books_id_seq, so ids are unique across shards without any
+// coordination and a book is found from its id alone. SLOTS is fixed, so adding shards later leaves existing ids
+// where they are. New books are placed round-robin; scatter calls run one virtual thread per shard.
+public class BookShards implements AutoCloseable {
+
+    public static final int SLOTS = 1024;
+
+    private final List<DataSource> shards;
+    private final long scatterTimeoutMs;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ExecutorService scatter = Executors.newVirtualThreadPerTaskExecutor();
+
+    public BookShards(List<DataSource> shards, long scatterTimeoutMs) {
+        if (shards.isEmpty() || shards.size() > SLOTS) {
+            throw new IllegalArgumentException("Sharded mode needs between 1 and " + SLOTS + " shard URLs");
+        }
+        this.shards = List.copyOf(shards);
+        this.scatterTimeoutMs = scatterTimeoutMs;
+    }
+
+    public int count() {
+        return shards.size();
+    }
+
+    public DataSource shard(int index) {
+        return shards.get(index);
+    }
+
+    // -1 for an id that no configured shard can hold (never issued, or from before sharded mode)
+    public int shardOf(long id) {
+        int slot = (int) Math.floorMod(id, (long) SLOTS);
+        return slot < shards.size() ? slot : -1;
+    }
+
+    public static long encode(long sequenceValue, int shard) {
+        return Math.multiplyExact(sequenceValue, (long) SLOTS) + shard;
+    }
+
+    public int place() {
+        return Math.floorMod(next.getAndIncrement(), shards.size());
+    }
+
+    // runs work against every shard in parallel; results come back in shard order
+    public <T> List<T> scatter(ShardWork<T> work) {
+        List<Future<T>> futures = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            int shard = i;
+            futures.add(scatter.submit(() -> work.run(shard, shards.get(shard))));
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(scatterTimeoutMs);
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                results.add(futures.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            }
+            return results;
+        } catch (TimeoutException ex) {
+            throw new QueryTimeoutException("Shard query did not finish within " + scatterTimeoutMs + "ms", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) throw cause;
+            throw new DataAccessResourceFailureException("Shard query failed", ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessResourceFailureException("Interrupted while waiting for shards", ex);
+        } finally {
+            for (Future<T> f : futures) f.cancel(true);
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        scatter.shutdownNow();
+        for (DataSource ds : shards) {
+            if (ds instanceof AutoCloseable closeable) closeable.close();
+        }
+    }
+
+    @FunctionalInterface
+    public interface ShardWork<T> {
+        T run(int shard, DataSource ds) throws Exception;
+    }
+}
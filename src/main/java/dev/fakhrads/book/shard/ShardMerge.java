@@ -0,0 +1,45 @@
+package dev.fakhrads.book.shard;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+// k-way merge of per-shard results that are each already sorted by the same order the merged result needs.
+public final class ShardMerge {
+
+    private ShardMerge() {}
+
+    public static <T> List<T> merge(List<List<T>> sorted, Comparator<? super T> order, long skip, int limit) {
+        List<T> merged = new ArrayList<>(limit);
+        Iterator<T> it = merge(sorted.stream().map(List::iterator).toList(), order);
+        for (long i = 0; i < skip && it.hasNext(); i++) it.next();
+        while (merged.size() < limit && it.hasNext()) merged.add(it.next());
+        return merged;
+    }
+
+    public static <T> Iterator<T> merge(List<? extends Iterator<T>> sorted, Comparator<? super T> order) {
+        PriorityQueue<Head<T>> heads = new PriorityQueue<>((a, b) -> order.compare(a.value, b.value));
+        for (Iterator<T> it : sorted) {
+            if (it.hasNext()) heads.add(new Head<>(it.next(), it));
+        }
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                Head<T> head = heads.poll();
+                if (head == null) throw new NoSuchElementException();
+                if (head.rest.hasNext()) heads.add(new Head<>(head.rest.next(), head.rest));
+                return head.value;
+            }
+        };
+    }
+
+    private record Head<T>(T value, Iterator<T> rest) {}
+}
@@ -0,0 +1,292 @@
+package dev.fakhrads.book.suggest;
+
+import dev.fakhrads.book.dao.BookDao;
+import dev.fakhrads.book.vo.BookVoResponse;
+import dev.fakhrads.book.vo.BookVoSuggestStats;
+import dev.fakhrads.book.vo.BookVoSuggestion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// Title/author autocomplete served from memory. Reads never lock: they see one immutable State made of the base
+// segment plus two small delta maps (frozen, being folded into a new segment, and live, receiving writes). Writes
+// land in live after their transaction commits; once live reaches compact-threshold entries it is frozen and merged
+// on a single background thread, so the base is rebuilt off the request path.
+@Component
+public class BookSuggestIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(BookSuggestIndex.class);
+    private static final int RAREST_FIRST_MAX = 1024;
+
+    private final BookDao dao;
+    private final TransactionTemplate readTx;
+    private final boolean enabled;
+    private final int fetchSize;
+    private final int compactThreshold;
+    private final int maxScan;
+
+    // writers share the read side so they never block each other; only the live -> frozen swap takes the write side
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "book-suggest-compactor");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean compactionQueued = new AtomicBoolean();
+
+    private volatile State state = new State(SuggestSegment.EMPTY, Map.of(), new ConcurrentHashMap<>());
+    private volatile boolean ready;
+    private volatile long lastBuildMs;
+    private volatile long compactions;
+
+    public BookSuggestIndex(
+            BookDao dao,
+            PlatformTransactionManager txManager,
+            @Value("${book.suggest.enabled:true}") boolean enabled,
+            @Value("${book.export.fetch-size:1000}") int fetchSize,
+            @Value("${book.suggest.compact-threshold:5000}") int compactThreshold,
+            @Value("${book.suggest.max-scan:20000}") int maxScan
+    ) {
+        this.dao = dao;
+        this.readTx = new TransactionTemplate(txManager);
+        this.readTx.setReadOnly(true);
+        this.enabled = enabled;
+        this.fetchSize = fetchSize;
+        this.compactThreshold = compactThreshold;
+        this.maxScan = maxScan;
+    }
+
+    // built after startup so the web server is not held back; until then only post-startup writes are suggested
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (enabled) compactor.execute(this::rebuild);
+    }
+
+    public List<BookVoSuggestion> suggest(String prefix, int limit) {
+        String[] query = SuggestTokens.query(prefix);
+        if (!enabled || query.length == 0) return List.of();
+
+        String last = query[query.length - 1];
+        String[] full = new String[query.length - 1];
+        System.arraycopy(query, 0, full, 0, full.length);
+
+        State s = state;
+        List<Hit> hits = new ArrayList<>();
+        collectFromSegment(s, full, last, limit, hits);
+        collectFromDelta(s.live, Map.of(), full, last, hits);
+        collectFromDelta(s.frozen, s.live, full, last, hits);
+
+        hits.sort(Hit.ORDER);
+        return hits.stream().limit(limit).map(h -> new BookVoSuggestion(h.id, h.title, h.author)).toList();
+    }
+
+    public void upsertAfterCommit(BookVoResponse book) {
+        SuggestDoc doc = new SuggestDoc(book.getId(), book.getTitle(), book.getAuthor());
+        afterCommit(() -> apply(doc.id, doc));
+    }
+
+    public void removeAfterCommit(Long id) {
+        afterCommit(() -> apply(id, SuggestDoc.TOMBSTONE));
+    }
+
+    // for writes that bypass the service (CSV import): reload everything from the database once they commit
+    public void rebuildAfterCommit() {
+        afterCommit(() -> compactor.execute(this::rebuild));
+    }
+
+    public BookVoSuggestStats stats() {
+        State s = state;
+        SuggestSegment seg = s.segment;
+        BookVoSuggestStats stats = new BookVoSuggestStats();
+        stats.setEnabled(enabled);
+        stats.setReady(ready);
+        stats.setBooks(seg.size());
+        stats.setTokens(seg.tokens.length);
+        stats.setPostings(seg.postingCount);
+        stats.setDeltaEntries(s.live.size() + s.frozen.size());
+        stats.setEstimatedBytes(seg.estimatedBytes);
+        stats.setBytesPerBook(seg.size() == 0 ? 0 : (double) seg.estimatedBytes / seg.size());
+        stats.setLastBuildMs(lastBuildMs);
+        stats.setCompactions(compactions);
+        return stats;
+    }
+
+    private void collectFromSegment(State s, String[] full, String last, int limit, List<Hit> hits) {
+        SuggestSegment seg = s.segment;
+        int[][] required = new int[full.length][];
+        for (int i = 0; i < full.length; i++) {
+            int t = seg.tokenIndex(full[i]);
+            if (t < 0) return;
+            required[i] = seg.postings[t];
+        }
+        Arrays.sort(required, Comparator.comparingInt(p -> p.length));
+
+        // the prefix range is walked lazily and stops after `limit` hits, so it wins unless a typed word is rare;
+        // sizing the range is capped so short prefixes with huge ranges ("1", "a") stay cheap
+        int from = seg.firstTokenAtOrAfter(last);
+        boolean rarestFirst = false;
+        if (required.length > 0 && required[0].length <= RAREST_FIRST_MAX) {
+            long rangeSize = 0;
+            for (int t = from; t < seg.tokens.length && seg.tokens[t].startsWith(last) && rangeSize <= required[0].length; t++) {
+                rangeSize += seg.postings[t].length;
+            }
+            rarestFirst = rangeSize > required[0].length;
+        }
+
+        int scanned = 0;
+        if (rarestFirst) {
+            // the rarest complete word is the tighter candidate list; the prefix is checked on each candidate's tokens
+            for (int position : required[0]) {
+                if (++scanned > maxScan) return;
+                if (!containsAll(required, 1, position) || s.shadows(seg.ids[position])) continue;
+                SuggestDoc doc = seg.doc(position);
+                String token = doc.match(full, last);
+                if (token != null) hits.add(new Hit(token, doc.id, doc.title, doc.author));
+            }
+            return;
+        }
+
+        // tokens ascend and each posting list ascends by id, so the first `limit` distinct books are the best ones
+        Set<Integer> seen = new HashSet<>();
+        int found = 0;
+        for (int t = from; t < seg.tokens.length && seg.tokens[t].startsWith(last); t++) {
+            for (int position : seg.postings[t]) {
+                if (++scanned > maxScan || found >= limit) return;
+                if (!containsAll(required, 0, position) || !seen.add(position) || s.shadows(seg.ids[position])) continue;
+                hits.add(new Hit(seg.tokens[t], seg.ids[position], seg.titles[position], seg.authors[position]));
+                found++;
+            }
+        }
+    }
+
+    private static boolean containsAll(int[][] postings, int from, int position) {
+        for (int i = from; i < postings.length; i++) {
+            if (Arrays.binarySearch(postings[i], position) < 0) return false;
+        }
+        return true;
+    }
+
+    private static void collectFromDelta(Map<Long, SuggestDoc> delta, Map<Long, SuggestDoc> newer,
+                                         String[] full, String last, List<Hit> hits) {
+        for (SuggestDoc doc : delta.values()) {
+            if (doc.isTombstone() || newer.containsKey(doc.id)) continue;
+            String token = doc.match(full, last);
+            if (token != null) hits.add(new Hit(token, doc.id, doc.title, doc.author));
+        }
+    }
+
+    private void apply(long id, SuggestDoc doc) {
+        if (!enabled) return;
+        int liveSize;
+        swapLock.readLock().lock();
+        try {
+            ConcurrentHashMap<Long, SuggestDoc> live = state.live;
+            live.put(id, doc);
+            liveSize = live.size();
+        } finally {
+            swapLock.readLock().unlock();
+        }
+        if (liveSize >= compactThreshold && compactionQueued.compareAndSet(false, true)) {
+            compactor.execute(this::compact);
+        }
+    }
+
+    private void compact() {
+        compactionQueued.set(false);
+        State frozen = freeze();
+        long started = System.nanoTime();
+        publish(frozen.segment.merge(frozen.frozen), started);
+        compactions++;
+    }
+
+    private void rebuild() {
+        freeze();
+        long started = System.nanoTime();
+        try {
+            List<SuggestDoc> docs = readTx.execute(status -> {
+                List<SuggestDoc> all = new ArrayList<>();
+                try (Stream<BookVoResponse> rows = dao.streamAll(fetchSize)) {
+                    rows.forEach(b -> all.add(new SuggestDoc(b.getId(), b.getTitle(), b.getAuthor())));
+                }
+                return all;
+            });
+            publish(SuggestSegment.build(docs), started);
+            ready = true;
+        } catch (RuntimeException ex) {
+            log.error("Suggest index rebuild failed; keeping the previous segment", ex);
+            publish(state.segment.merge(state.frozen), started);
+        }
+    }
+
+    // moves live into frozen; anything committed after this point lands in the new live map
+    private State freeze() {
+        swapLock.writeLock().lock();
+        try {
+            State s = state;
+            Map<Long, SuggestDoc> frozen = new HashMap<>(s.frozen);
+            frozen.putAll(s.live);
+            state = new State(s.segment, frozen, new ConcurrentHashMap<>());
+            return state;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+    }
+
+    private void publish(SuggestSegment segment, long startedNanos) {
+        swapLock.writeLock().lock();
+        try {
+            state = new State(segment, Map.of(), state.live);
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        lastBuildMs = (System.nanoTime() - startedNanos) / 1_000_000;
+        log.info("Suggest index published: books={} tokens={} postings={} estimatedBytes={} buildMs={}",
+                segment.size(), segment.tokens.length, segment.postingCount, segment.estimatedBytes, lastBuildMs);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private record State(SuggestSegment segment, Map<Long, SuggestDoc> frozen, ConcurrentHashMap<Long, SuggestDoc> live) {
+        boolean shadows(long id) {
+            return live.containsKey(id) || frozen.containsKey(id);
+        }
+    }
+
+    private record Hit(String token, long id, String title, String author) {
+        static final Comparator<Hit> ORDER = Comparator.comparing(Hit::token).thenComparingLong(Hit::id);
+    }
+}
@@ -0,0 +1,34 @@
+package dev.fakhrads.book.suggest;
+
+import java.util.Arrays;
+
+final class SuggestDoc {
+
+    static final SuggestDoc TOMBSTONE = new SuggestDoc(-1, "", "");
+
+    final long id;
+    final String title;
+    final String author;
+    final String[] tokens;
+
+    SuggestDoc(long id, String title, String author) {
+        this.id = id;
+        this.title = title;
+        this.author = author;
+        this.tokens = SuggestTokens.of(title, author);
+    }
+
+    boolean isTombstone() {
+        return this == TOMBSTONE;
+    }
+
+    // smallest token starting with prefix when every full token is present, otherwise null
+    String match(String[] full, String prefix) {
+        for (String f : full) {
+            if (Arrays.binarySearch(tokens, f) < 0) return null;
+        }
+        int at = Arrays.binarySearch(tokens, prefix);
+        int from = at >= 0 ? at : -at - 1;
+        return from < tokens.length && tokens[from].startsWith(prefix) ? tokens[from] : null;
+    }
+}
@@ -0,0 +1,135 @@
+package dev.fakhrads.book.suggest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Immutable, array-only snapshot of the index. Books live in parallel arrays ordered by id; each distinct token maps
+// to an ascending int[] of positions in those arrays (4 bytes per posting instead of a boxed Long), and the token
+// dictionary is one sorted String[] so a prefix is a binary search followed by a contiguous range.
+final class SuggestSegment {
+
+    static final SuggestSegment EMPTY = build(List.of());
+
+    final long[] ids;
+    final String[] titles;
+    final String[] authors;
+    final String[] tokens;
+    final int[][] postings;
+    final long postingCount;
+    final long estimatedBytes;
+
+    private SuggestSegment(long[] ids, String[] titles, String[] authors, String[] tokens, int[][] postings) {
+        this.ids = ids;
+        this.titles = titles;
+        this.authors = authors;
+        this.tokens = tokens;
+        this.postings = postings;
+        this.postingCount = Arrays.stream(postings).mapToLong(p -> p.length).sum();
+        this.estimatedBytes = estimateBytes();
+    }
+
+    // docs must be ordered by id without duplicates
+    static SuggestSegment build(List<SuggestDoc> docs) {
+        int n = docs.size();
+        long[] ids = new long[n];
+        String[] titles = new String[n];
+        String[] authors = new String[n];
+        Map<String, IntList> byToken = new HashMap<>();
+
+        for (int i = 0; i < n; i++) {
+            SuggestDoc doc = docs.get(i);
+            ids[i] = doc.id;
+            titles[i] = doc.title;
+            authors[i] = doc.author;
+            for (String token : doc.tokens) {
+                byToken.computeIfAbsent(token, k -> new IntList()).add(i);
+            }
+        }
+
+        String[] tokens = byToken.keySet().toArray(String[]::new);
+        Arrays.sort(tokens);
+        int[][] postings = new int[tokens.length][];
+        for (int t = 0; t < tokens.length; t++) {
+            postings[t] = byToken.get(tokens[t]).toArray();
+        }
+        return new SuggestSegment(ids, titles, authors, tokens, postings);
+    }
+
+    // folds a delta layer into this segment: overridden and deleted books are dropped, live entries merged by id
+    SuggestSegment merge(Map<Long, SuggestDoc> delta) {
+        if (delta.isEmpty()) return this;
+        List<SuggestDoc> docs = new ArrayList<>(ids.length + delta.size());
+        List<SuggestDoc> added = delta.values().stream()
+                .filter(d -> !d.isTombstone())
+                .sorted((a, b) -> Long.compare(a.id, b.id))
+                .toList();
+
+        int j = 0;
+        for (int i = 0; i < ids.length; i++) {
+            while (j < added.size() && added.get(j).id < ids[i]) docs.add(added.get(j++));
+            if (!delta.containsKey(ids[i])) docs.add(new SuggestDoc(ids[i], titles[i], authors[i]));
+        }
+        while (j < added.size()) docs.add(added.get(j++));
+        return build(docs);
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    int firstTokenAtOrAfter(String prefix) {
+        int at = Arrays.binarySearch(tokens, prefix);
+        return at >= 0 ? at : -at - 1;
+    }
+
+    int tokenIndex(String token) {
+        return Arrays.binarySearch(tokens, token);
+    }
+
+    SuggestDoc doc(int position) {
+        return new SuggestDoc(ids[position], titles[position], authors[position]);
+    }
+
+    // shallow sizes for a 64-bit JVM with compressed oops and compact strings
+    private long estimateBytes() {
+        long bytes = array(8L * ids.length)
+                + array(4L * titles.length) + array(4L * authors.length)
+                + array(4L * tokens.length) + array(4L * postings.length);
+        for (String s : titles) bytes += string(s);
+        for (String s : authors) bytes += string(s);
+        for (String s : tokens) bytes += string(s);
+        for (int[] p : postings) bytes += array(4L * p.length);
+        return bytes;
+    }
+
+    private static long array(long payload) {
+        return align(16 + payload);
+    }
+
+    private static long string(String s) {
+        if (s == null) return 0;
+        boolean latin1 = s.chars().allMatch(c -> c < 256);
+        return 24 + array((long) s.length() * (latin1 ? 1 : 2));
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package dev.fakhrads.book.suggest;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+final class SuggestTokens {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private SuggestTokens() {}
+
+    // distinct, sorted tokens of a book; "Émile Zola" and "emile zola" index the same
+    static String[] of(String title, String author) {
+        return Arrays.stream(split(title + " " + author)).distinct().sorted().toArray(String[]::new);
+    }
+
+    // tokens of a query in typed order; the last one is treated as a prefix
+    static String[] query(String text) {
+        return split(text);
+    }
+
+    private static String[] split(String text) {
+        if (text == null) return new String[0];
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+        return Arrays.stream(SEPARATORS.split(folded)).filter(t -> !t.isEmpty()).toArray(String[]::new);
+    }
+}
@@ -0,0 +1,26 @@
+package dev.fakhrads.book.vo;
+
+public class BookVoAdmissionStats {
+    private int limit;
+    private int inFlight;
+    private long rejected;
+    private long backoffs;
+    private long latencyTargetMs;
+
+    public BookVoAdmissionStats() {}
+
+    public int getLimit() { return limit; }
+    public void setLimit(int limit) { this.limit = limit; }
+
+    public int getInFlight() { return inFlight; }
+    public void setInFlight(int inFlight) { this.inFlight = inFlight; }
+
+    public long getRejected() { return rejected; }
+    public void setRejected(long rejected) { this.rejected = rejected; }
+
+    public long getBackoffs() { return backoffs; }
+    public void setBackoffs(long backoffs) { this.backoffs = backoffs; }
+
+    public long getLatencyTargetMs() { return latencyTargetMs; }
+    public void setLatencyTargetMs(long latencyTargetMs) { this.latencyTargetMs = latencyTargetMs; }
+}
@@ -0,0 +1,34 @@
+package dev.fakhrads.book.vo;
+
+public class BookVoBulkItemResult {
+    private int index;
+    private BookVoBulkStatus status;
+    private Long id;
+    private String isbn;
+    private String message;
+
+    public BookVoBulkItemResult() {}
+
+    public BookVoBulkItemResult(int index, BookVoBulkStatus status, Long id, String isbn, String message) {
+        this.index = index;
+        this.status = status;
+        this.id = id;
+        this.isbn = isbn;
+        this.message = message;
+    }
+
+    public int getIndex() { return index; }
+    public void setIndex(int index) { this.index = index; }
+
+    public BookVoBulkStatus getStatus() { return status; }
+    public void setStatus(BookVoBulkStatus status) { this.status = status; }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getIsbn() { return isbn; }
+    public void setIsbn(String isbn) { this.isbn = isbn; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+}
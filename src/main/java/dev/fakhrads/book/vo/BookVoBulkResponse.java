@@ -0,0 +1,26 @@
+package dev.fakhrads.book.vo;
+
+import java.util.List;
+
+public class BookVoBulkResponse {
+    private int created;
+    private int rejected;
+    private List<BookVoBulkItemResult> items;
+
+    public BookVoBulkResponse() {}
+
+    public BookVoBulkResponse(int created, int rejected, List<BookVoBulkItemResult> items) {
+        this.created = created;
+        this.rejected = rejected;
+        this.items = items;
+    }
+
+    public int getCreated() { return created; }
+    public void setCreated(int created) { this.created = created; }
+
+    public int getRejected() { return rejected; }
+    public void setRejected(int rejected) { this.rejected = rejected; }
+
+    public List<BookVoBulkItemResult> getItems() { return items; }
+    public void setItems(List<BookVoBulkItemResult> items) { this.items = items; }
+}
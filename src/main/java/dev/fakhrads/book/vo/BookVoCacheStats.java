@@ -0,0 +1,46 @@
+package dev.fakhrads.book.vo;
+
+public class BookVoCacheStats {
+    private boolean enabled;
+    private long size;
+    private long maximumSize;
+    private long expireAfterWriteMs;
+    private long hitCount;
+    private long missCount;
+    private double hitRate;
+    private long loadCount;
+    private long evictionCount;
+    private long coalescedCount;
+
+    public BookVoCacheStats() {}
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public long getSize() { return size; }
+    public void setSize(long size) { this.size = size; }
+
+    public long getMaximumSize() { return maximumSize; }
+    public void setMaximumSize(long maximumSize) { this.maximumSize = maximumSize; }
+
+    public long getExpireAfterWriteMs() { return expireAfterWriteMs; }
+    public void setExpireAfterWriteMs(long expireAfterWriteMs) { this.expireAfterWriteMs = expireAfterWriteMs; }
+
+    public long getHitCount() { return hitCount; }
+    public void setHitCount(long hitCount) { this.hitCount = hitCount; }
+
+    public long getMissCount() { return missCount; }
+    public void setMissCount(long missCount) { this.missCount = missCount; }
+
+    public double getHitRate() { return hitRate; }
+    public void setHitRate(double hitRate) { this.hitRate = hitRate; }
+
+    public long getLoadCount() { return loadCount; }
+    public void setLoadCount(long loadCount) { this.loadCount = loadCount; }
+
+    public long getEvictionCount() { return evictionCount; }
+    public void setEvictionCount(long evictionCount) { this.evictionCount = evictionCount; }
+
+    public long getCoalescedCount() { return coalescedCount; }
+    public void setCoalescedCount(long coalescedCount) { this.coalescedCount = coalescedCount; }
+}
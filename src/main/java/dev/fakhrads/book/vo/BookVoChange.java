@@ -0,0 +1,36 @@
+package dev.fakhrads.book.vo;
+
+import java.time.Instant;
+
+public class BookVoChange {
+    private long id;
+    private long bookId;
+    private BookVoChangeType type;
+    private Long version;
+    private Instant changedAt;
+
+    public BookVoChange() {}
+
+    public BookVoChange(long id, long bookId, BookVoChangeType type, Long version, Instant changedAt) {
+        this.id = id;
+        this.bookId = bookId;
+        this.type = type;
+        this.version = version;
+        this.changedAt = changedAt;
+    }
+
+    public long getId() { return id; }
+    public void setId(long id) { this.id = id; }
+
+    public long getBookId() { return bookId; }
+    public void setBookId(long bookId) { this.bookId = bookId; }
+
+    public BookVoChangeType getType() { return type; }
+    public void setType(BookVoChangeType type) { this.type = type; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    public Instant getChangedAt() { return changedAt; }
+    public void setChangedAt(Instant changedAt) { this.changedAt = changedAt; }
+}
@@ -0,0 +1,46 @@
+package dev.fakhrads.book.vo;
+
+public class BookVoChangeFeedStats {
+    private boolean enabled;
+    private int subscribers;
+    private long lastChangeId;
+    private long compactedThroughId;
+    private long published;
+    private int ringSize;
+    private long backfills;
+    private long resets;
+    private long laggingDisconnects;
+    private long gapsSkipped;
+
+    public BookVoChangeFeedStats() {}
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public int getSubscribers() { return subscribers; }
+    public void setSubscribers(int subscribers) { this.subscribers = subscribers; }
+
+    public long getLastChangeId() { return lastChangeId; }
+    public void setLastChangeId(long lastChangeId) { this.lastChangeId = lastChangeId; }
+
+    public long getCompactedThroughId() { return compactedThroughId; }
+    public void setCompactedThroughId(long compactedThroughId) { this.compactedThroughId = compactedThroughId; }
+
+    public long getPublished() { return published; }
+    public void setPublished(long published) { this.published = published; }
+
+    public int getRingSize() { return ringSize; }
+    public void setRingSize(int ringSize) { this.ringSize = ringSize; }
+
+    public long getBackfills() { return backfills; }
+    public void setBackfills(long backfills) { this.backfills = backfills; }
+
+    public long getResets() { return resets; }
+    public void setResets(long resets) { this.resets = resets; }
+
+    public long getLaggingDisconnects() { return laggingDisconnects; }
+    public void setLaggingDisconnects(long laggingDisconnects) { this.laggingDisconnects = laggingDisconnects; }
+
+    public long getGapsSkipped() { return gapsSkipped; }
+    public void setGapsSkipped(long gapsSkipped) { this.gapsSkipped = gapsSkipped; }
+}
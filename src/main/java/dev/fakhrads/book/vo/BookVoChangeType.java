@@ -0,0 +1,7 @@
+package dev.fakhrads.book.vo;
+
+public enum BookVoChangeType {
+    CREATE,
+    UPDATE,
+    DELETE
+}
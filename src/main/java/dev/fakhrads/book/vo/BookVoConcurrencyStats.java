@@ -0,0 +1,52 @@
+package dev.fakhrads.book.vo;
+
+import java.util.Map;
+
+public class BookVoConcurrencyStats {
+    private boolean virtualThreads;
+    private boolean dbPermitsEnabled;
+    private int dbPermits;
+    private int dbPermitsAvailable;
+    private int dbPermitWaiters;
+    private long dbPermitTimeouts;
+    private boolean pinningMonitorActive;
+    private long pinnedEvents;
+    private Map<String, Long> pinnedSites;
+    private boolean admissionEnabled;
+    private Map<String, BookVoAdmissionStats> admission;
+
+    public BookVoConcurrencyStats() {}
+
+    public boolean isVirtualThreads() { return virtualThreads; }
+    public void setVirtualThreads(boolean virtualThreads) { this.virtualThreads = virtualThreads; }
+
+    public boolean isDbPermitsEnabled() { return dbPermitsEnabled; }
+    public void setDbPermitsEnabled(boolean dbPermitsEnabled) { this.dbPermitsEnabled = dbPermitsEnabled; }
+
+    public int getDbPermits() { return dbPermits; }
+    public void setDbPermits(int dbPermits) { this.dbPermits = dbPermits; }
+
+    public int getDbPermitsAvailable() { return dbPermitsAvailable; }
+    public void setDbPermitsAvailable(int dbPermitsAvailable) { this.dbPermitsAvailable = dbPermitsAvailable; }
+
+    public int getDbPermitWaiters() { return dbPermitWaiters; }
+    public void setDbPermitWaiters(int dbPermitWaiters) { this.dbPermitWaiters = dbPermitWaiters; }
+
+    public long getDbPermitTimeouts() { return dbPermitTimeouts; }
+    public void setDbPermitTimeouts(long dbPermitTimeouts) { this.dbPermitTimeouts = dbPermitTimeouts; }
+
+    public boolean isPinningMonitorActive() { return pinningMonitorActive; }
+    public void setPinningMonitorActive(boolean pinningMonitorActive) { this.pinningMonitorActive = pinningMonitorActive; }
+
+    public long getPinnedEvents() { return pinnedEvents; }
+    public void setPinnedEvents(long pinnedEvents) { this.pinnedEvents = pinnedEvents; }
+
+    public Map<String, Long> getPinnedSites() { return pinnedSites; }
+    public void setPinnedSites(Map<String, Long> pinnedSites) { this.pinnedSites = pinnedSites; }
+
+    public boolean isAdmissionEnabled() { return admissionEnabled; }
+    public void setAdmissionEnabled(boolean admissionEnabled) { this.admissionEnabled = admissionEnabled; }
+
+    public Map<String, BookVoAdmissionStats> getAdmission() { return admission; }
+    public void setAdmission(Map<String, BookVoAdmissionStats> admission) { this.admission = admission; }
+}
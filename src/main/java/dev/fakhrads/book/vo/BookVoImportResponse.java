@@ -0,0 +1,32 @@
+package dev.fakhrads.book.vo;
+
+import java.util.List;
+
+public class BookVoImportResponse {
+    private long inserted;
+    private long updated;
+    private long unchanged;
+    private long duplicates;
+    private long rejected;
+    private List<BookVoImportError> errors;
+
+    public BookVoImportResponse() {}
+
+    public long getInserted() { return inserted; }
+    public void setInserted(long inserted) { this.inserted = inserted; }
+
+    public long getUpdated() { return updated; }
+    public void setUpdated(long updated) { this.updated = updated; }
+
+    public long getUnchanged() { return unchanged; }
+    public void setUnchanged(long unchanged) { this.unchanged = unchanged; }
+
+    public long getDuplicates() { return duplicates; }
+    public void setDuplicates(long duplicates) { this.duplicates = duplicates; }
+
+    public long getRejected() { return rejected; }
+    public void setRejected(long rejected) { this.rejected = rejected; }
+
+    public List<BookVoImportError> getErrors() { return errors; }
+    public void setErrors(List<BookVoImportError> errors) { this.errors = errors; }
+}
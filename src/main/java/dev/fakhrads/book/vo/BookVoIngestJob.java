@@ -0,0 +1,47 @@
+package dev.fakhrads.book.vo;
+
+import java.time.Instant;
+
+public class BookVoIngestJob {
+    private String jobId;
+    private BookVoIngestStatus status;
+    private Long bookId;
+    private String isbn;
+    private String message;
+    private Instant acceptedAt;
+    private Instant completedAt;
+
+    public BookVoIngestJob() {}
+
+    public BookVoIngestJob(String jobId, BookVoIngestStatus status, Long bookId, String isbn, String message,
+                           Instant acceptedAt, Instant completedAt) {
+        this.jobId = jobId;
+        this.status = status;
+        this.bookId = bookId;
+        this.isbn = isbn;
+        this.message = message;
+        this.acceptedAt = acceptedAt;
+        this.completedAt = completedAt;
+    }
+
+    public String getJobId() { return jobId; }
+    public void setJobId(String jobId) { this.jobId = jobId; }
+
+    public BookVoIngestStatus getStatus() { return status; }
+    public void setStatus(BookVoIngestStatus status) { this.status = status; }
+
+    public Long getBookId() { return bookId; }
+    public void setBookId(Long bookId) { this.bookId = bookId; }
+
+    public String getIsbn() { return isbn; }
+    public void setIsbn(String isbn) { this.isbn = isbn; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+
+    public Instant getAcceptedAt() { return acceptedAt; }
+    public void setAcceptedAt(Instant acceptedAt) { this.acceptedAt = acceptedAt; }
+
+    public Instant getCompletedAt() { return completedAt; }
+    public void setCompletedAt(Instant completedAt) { this.completedAt = completedAt; }
+}
@@ -0,0 +1,54 @@
+package dev.fakhrads.book.vo;
+
+public class BookVoIngestStats {
+    private boolean enabled;
+    private int queueDepth;
+    private int queueCapacity;
+    private int workers;
+    private int batchSize;
+    private long pending;
+    private long accepted;
+    private long rejected;
+    private long completed;
+    private long failed;
+    private boolean journalEnabled;
+    private long journalBytes;
+
+    public BookVoIngestStats() {}
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public int getQueueDepth() { return queueDepth; }
+    public void setQueueDepth(int queueDepth) { this.queueDepth = queueDepth; }
+
+    public int getQueueCapacity() { return queueCapacity; }
+    public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+
+    public int getWorkers() { return workers; }
+    public void setWorkers(int workers) { this.workers = workers; }
+
+    public int getBatchSize() { return batchSize; }
+    public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+
+    public long getPending() { return pending; }
+    public void setPending(long pending) { this.pending = pending; }
+
+    public long getAccepted() { return accepted; }
+    public void setAccepted(long accepted) { this.accepted = accepted; }
+
+    public long getRejected() { return rejected; }
+    public void setRejected(long rejected) { this.rejected = rejected; }
+
+    public long getCompleted() { return completed; }
+    public void setCompleted(long completed) { this.completed = completed; }
+
+    public long getFailed() { return failed; }
+    public void setFailed(long failed) { this.failed = failed; }
+
+    public boolean isJournalEnabled() { return journalEnabled; }
+    public void setJournalEnabled(boolean journalEnabled) { this.journalEnabled = journalEnabled; }
+
+    public long getJournalBytes() { return journalBytes; }
+    public void setJournalBytes(long journalBytes) { this.journalBytes = journalBytes; }
+}
@@ -0,0 +1,9 @@
+package dev.fakhrads.book.vo;
+
+public enum BookVoIngestStatus {
+    QUEUED,
+    CREATED,
+    INVALID,
+    DUPLICATE_ISBN,
+    FAILED
+}
@@ -0,0 +1,16 @@
+package dev.fakhrads.book.vo;
+
+import java.util.List;
+
+public class BookVoLookupRequest {
+    private List<Long> ids;
+
+    public BookVoLookupRequest() {}
+
+    public BookVoLookupRequest(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    public List<Long> getIds() { return ids; }
+    public void setIds(List<Long> ids) { this.ids = ids; }
+}
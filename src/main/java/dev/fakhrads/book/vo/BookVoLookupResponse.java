@@ -0,0 +1,21 @@
+package dev.fakhrads.book.vo;
+
+import java.util.List;
+
+public class BookVoLookupResponse {
+    private List<BookVoResponse> items;
+    private List<Long> missing;
+
+    public BookVoLookupResponse() {}
+
+    public BookVoLookupResponse(List<BookVoResponse> items, List<Long> missing) {
+        this.items = items;
+        this.missing = missing;
+    }
+
+    public List<BookVoResponse> getItems() { return items; }
+    public void setItems(List<BookVoResponse> items) { this.items = items; }
+
+    public List<Long> getMissing() { return missing; }
+    public void setMissing(List<Long> missing) { this.missing = missing; }
+}
@@ -0,0 +1,31 @@
+package dev.fakhrads.book.vo;
+
+import java.util.List;
+
+public class BookVoPage {
+    private List<BookVoResponse> items;
+    private Long nextAfter;
+    private Long totalEstimate;
+    private String versionTag;
+
+    public BookVoPage() {}
+
+    public BookVoPage(List<BookVoResponse> items, Long nextAfter, Long totalEstimate, String versionTag) {
+        this.items = items;
+        this.nextAfter = nextAfter;
+        this.totalEstimate = totalEstimate;
+        this.versionTag = versionTag;
+    }
+
+    public List<BookVoResponse> getItems() { return items; }
+    public void setItems(List<BookVoResponse> items) { this.items = items; }
+
+    public Long getNextAfter() { return nextAfter; }
+    public void setNextAfter(Long nextAfter) { this.nextAfter = nextAfter; }
+
+    public Long getTotalEstimate() { return totalEstimate; }
+    public void setTotalEstimate(Long totalEstimate) { this.totalEstimate = totalEstimate; }
+
+    public String getVersionTag() { return versionTag; }
+    public void setVersionTag(String versionTag) { this.versionTag = versionTag; }
+}
@@ -1,6 +1,7 @@
 package dev.fakhrads.book.vo;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.time.LocalDate;
 
 public class BookVoResponse {
@@ -12,6 +13,9 @@ public class BookVoResponse {
     @JsonFormat(pattern = "yyyy-MM-dd")
     private LocalDate publishedDate;
 
+    @JsonIgnore
+    private Long version;
+
     public BookVoResponse() {}
 
     public BookVoResponse(Long id, String title, String author, String isbn, LocalDate publishedDate) {
@@ -22,6 +26,11 @@ public class BookVoResponse {
         this.publishedDate = publishedDate;
     }
 
+    public BookVoResponse(Long id, String title, String author, String isbn, LocalDate publishedDate, Long version) {
+        this(id, title, author, isbn, publishedDate);
+        this.version = version;
+    }
+
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
 
@@ -36,4 +45,7 @@ public class BookVoResponse {
 
     public LocalDate getPublishedDate() { return publishedDate; }
     public void setPublishedDate(LocalDate publishedDate) { this.publishedDate = publishedDate; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
@@ -0,0 +1,46 @@
+package dev.fakhrads.book.vo;
+
+public class BookVoSuggestStats {
+    private boolean enabled;
+    private boolean ready;
+    private long books;
+    private long tokens;
+    private long postings;
+    private long deltaEntries;
+    private long estimatedBytes;
+    private double bytesPerBook;
+    private long lastBuildMs;
+    private long compactions;
+
+    public BookVoSuggestStats() {}
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public boolean isReady() { return ready; }
+    public void setReady(boolean ready) { this.ready = ready; }
+
+    public long getBooks() { return books; }
+    public void setBooks(long books) { this.books = books; }
+
+    public long getTokens() { return tokens; }
+    public void setTokens(long tokens) { this.tokens = tokens; }
+
+    public long getPostings() { return postings; }
+    public void setPostings(long postings) { this.postings = postings; }
+
+    public long getDeltaEntries() { return deltaEntries; }
+    public void setDeltaEntries(long deltaEntries) { this.deltaEntries = deltaEntries; }
+
+    public long getEstimatedBytes() { return estimatedBytes; }
+    public void setEstimatedBytes(long estimatedBytes) { this.estimatedBytes = estimatedBytes; }
+
+    public double getBytesPerBook() { return bytesPerBook; }
+    public void setBytesPerBook(double bytesPerBook) { this.bytesPerBook = bytesPerBook; }
+
+    public long getLastBuildMs() { return lastBuildMs; }
+    public void setLastBuildMs(long lastBuildMs) { this.lastBuildMs = lastBuildMs; }
+
+    public long getCompactions() { return compactions; }
+    public void setCompactions(long compactions) { this.compactions = compactions; }
+}
@@ -0,0 +1,24 @@
+package dev.fakhrads.book.vo;
+
+public class BookVoSuggestion {
+    private Long id;
+    private String title;
+    private String author;
+
+    public BookVoSuggestion() {}
+
+    public BookVoSuggestion(Long id, String title, String author) {
+        this.id = id;
+        this.title = title;
+        this.author = author;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getAuthor() { return author; }
+    public void setAuthor(String author) { this.author = author; }
+}
@@ -0,0 +1,8 @@
+package dev.fakhrads.book.vo.swagger;
+
+import dev.fakhrads.book.dto.DtoResponse;
+import dev.fakhrads.book.vo.BookVoBulkResponse;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(name = "BookBulkResponseDto", description = "Standard response wrapper with per-item bulk create results")
+public class BookSwaggerBulkResponse extends DtoResponse<BookVoBulkResponse> {}
@@ -0,0 +1,8 @@
+package dev.fakhrads.book.vo.swagger;
+
+import dev.fakhrads.book.dto.DtoResponse;
+import dev.fakhrads.book.vo.BookVoImportResponse;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(name = "BookImportResponseDto", description = "Standard response wrapper with CSV import counts")
+public class BookSwaggerImportResponse extends DtoResponse<BookVoImportResponse> {}
@@ -0,0 +1,8 @@
+package dev.fakhrads.book.vo.swagger;
+
+import dev.fakhrads.book.dto.DtoResponse;
+import dev.fakhrads.book.vo.BookVoIngestJob;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(name = "BookIngestJobResponseDto", description = "Standard response wrapper with the status of an asynchronous create")
+public class BookSwaggerIngestJobResponse extends DtoResponse<BookVoIngestJob> {}
@@ -0,0 +1,8 @@
+package dev.fakhrads.book.vo.swagger;
+
+import dev.fakhrads.book.dto.DtoResponse;
+import dev.fakhrads.book.vo.BookVoLookupResponse;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(name = "BookLookupResponseDto", description = "Standard response wrapper with found books in request order and missing ids")
+public class BookSwaggerLookupResponse extends DtoResponse<BookVoLookupResponse> {}
@@ -0,0 +1,10 @@
+package dev.fakhrads.book.vo.swagger;
+
+import dev.fakhrads.book.vo.BookVoSuggestion;
+import dev.fakhrads.book.dto.DtoResponse;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(name = "BookSuggestResponseDto", description = "Standard response wrapper with List<BookSuggestion> payload")
+public class BookSwaggerSuggestResponse extends DtoResponse<List<BookVoSuggestion>> {}
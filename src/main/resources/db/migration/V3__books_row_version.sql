@@ -0,0 +1,2 @@
+-- Row version used for ETags and optimistic locking; bumped on every update of the row.
+ALTER TABLE books ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,9 @@
+-- 'simple' keeps words as written (no stemming, no stop words): titles and author names are multilingual,
+-- and a language-specific dictionary would mangle names and non-English titles.
+ALTER TABLE books ADD COLUMN IF NOT EXISTS search_vector tsvector
+  GENERATED ALWAYS AS (
+    setweight(to_tsvector('simple', coalesce(title, '')), 'A') ||
+    setweight(to_tsvector('simple', coalesce(author, '')), 'B')
+  ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_books_search_vector ON books USING GIN (search_vector);
@@ -0,0 +1,10 @@
+-- Transactional outbox for the change feed: one row per create/update/delete, written in the same transaction as
+-- the change itself. No foreign key, so rows of deleted books stay readable. The id sequence keeps increment 1
+-- so a hole in the ids means an uncommitted (or rolled back) writer, which is what the feed reader waits out.
+CREATE TABLE IF NOT EXISTS book_changes (
+  id BIGSERIAL PRIMARY KEY,
+  book_id BIGINT NOT NULL,
+  op VARCHAR(10) NOT NULL,
+  version BIGINT,
+  changed_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
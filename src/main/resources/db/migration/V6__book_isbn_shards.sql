@@ -0,0 +1,7 @@
+-- Sharded mode only: the ISBN routing table, kept in the main (directory) database next to book_changes. It makes
+-- ISBNs unique across shards and sends ISBN lookups to the one shard holding the book. Every shard runs the same
+-- migrations, so the table also exists, empty, on the shards and in unsharded deployments.
+CREATE TABLE IF NOT EXISTS book_isbn_shards (
+  isbn VARCHAR(50) PRIMARY KEY,
+  book_id BIGINT NOT NULL UNIQUE
+);
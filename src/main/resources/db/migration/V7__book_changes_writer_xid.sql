@@ -0,0 +1,4 @@
+-- Transaction id of the writer of each change. Writers take it before they draw the change id, so an id that is
+-- missing while a higher one is visible belongs to a transaction that was already running at that moment: once every
+-- such transaction has ended (the snapshot xmin passed them), the id either became visible or never will.
+ALTER TABLE book_changes ADD COLUMN IF NOT EXISTS xid xid8;
@@ -0,0 +1,72 @@
+package dev.fakhrads.book.cache;
+
+import dev.fakhrads.book.vo.BookVoResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookCacheTests {
+
+    @Test
+    void evictionDuringInFlightLoadDropsTheLoadedValue() throws Exception {
+        BookCache cache = new BookCache(true, 100, 60_000);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<BookVoResponse> reader = CompletableFuture.supplyAsync(() -> cache.get(1L, id -> {
+            loading.countDown();
+            await(release);
+            return book(id, "stale");
+        }));
+
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> cache.evictAfterCommit(1L));
+        release.countDown();
+
+        assertThat(reader.get(5, TimeUnit.SECONDS).getTitle()).isEqualTo("stale");
+        writer.get(5, TimeUnit.SECONDS);
+
+        AtomicInteger loads = new AtomicInteger();
+        BookVoResponse fresh = cache.get(1L, id -> {
+            loads.incrementAndGet();
+            return book(id, "fresh");
+        });
+        assertThat(fresh.getTitle()).isEqualTo("fresh");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void missingBooksAreNotCached() {
+        BookCache cache = new BookCache(true, 100, 60_000);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(7L, id -> {
+            loads.incrementAndGet();
+            return null;
+        });
+        cache.get(7L, id -> {
+            loads.incrementAndGet();
+            return null;
+        });
+
+        assertThat(loads).hasValue(2);
+        assertThat(cache.stats().getSize()).isZero();
+    }
+
+    private static BookVoResponse book(Long id, String title) {
+        return new BookVoResponse(id, title, "author", "isbn-" + id, null);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
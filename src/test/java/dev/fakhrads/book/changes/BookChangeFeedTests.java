@@ -0,0 +1,256 @@
+package dev.fakhrads.book.changes;
+
+import dev.fakhrads.book.dao.BookChangeDao;
+import dev.fakhrads.book.exception.ServiceUnavailableException;
+import dev.fakhrads.book.vo.BookVoChange;
+import dev.fakhrads.book.vo.BookVoChangeType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class BookChangeFeedTests {
+
+    private static final Pattern BOOK_EVENT = Pattern.compile("id:(\\d+)\nevent:book\n");
+
+    private final FakeChangeDao dao = new FakeChangeDao();
+    private TestFeed feed;
+
+    @AfterEach
+    void stopFeed() {
+        if (feed != null) feed.stop();
+    }
+
+    @Test
+    void startWaitsForWritersRunningWhenTheLastIdWasIssued() {
+        feed = new TestFeed(dao, 100);
+        dao.lastIssued = 5;
+        dao.running(100, 101);
+
+        assertThat(feed.settle()).isFalse();
+        assertThatThrownBy(() -> feed.subscribe(null)).isInstanceOf(ServiceUnavailableException.class);
+
+        // the writer holding id 4 commits, then the transactions of that moment are over
+        dao.commit(4);
+        dao.running(102, 102);
+        assertThat(feed.settle()).isTrue();
+        assertThat(feed.stats().getLastChangeId()).isEqualTo(5);
+
+        // id 4 was committed before the start position: it reaches clients resuming from the table, not the live ring
+        Capture resumed = feed.subscribeCapturing(3L);
+        waitFor(() -> resumed.ids().equals(List.of(4L)));
+    }
+
+    @Test
+    void holeHoldsDeliveryForAsLongAsItsWriterRuns() {
+        feed = settled(new TestFeed(dao, 100));
+        Capture live = feed.subscribeCapturing(null);
+
+        dao.commit(1);
+        dao.commit(3);
+        dao.running(50, 60);
+        feed.poll();
+        waitFor(() -> live.ids().equals(List.of(1L)));
+
+        // well past gap-warn-ms (0 here): still held, nothing is skipped on time alone
+        dao.running(55, 70);
+        feed.poll();
+        feed.poll();
+        assertThat(feed.stats().getLastChangeId()).isEqualTo(1);
+
+        dao.commit(2);
+        feed.poll();
+        waitFor(() -> live.ids().equals(List.of(1L, 2L, 3L)));
+        assertThat(feed.stats().getGapsSkipped()).isZero();
+    }
+
+    @Test
+    void holeIsSkippedOnceEveryWriterOfThatMomentEnded() {
+        feed = settled(new TestFeed(dao, 100));
+        Capture live = feed.subscribeCapturing(null);
+
+        dao.commit(1);
+        dao.commit(4);
+        dao.running(50, 60);
+        feed.poll();
+
+        // transactions that started after the hole was seen do not keep it open
+        dao.running(60, 75);
+        feed.poll();
+        waitFor(() -> live.ids().equals(List.of(1L, 4L)));
+        assertThat(feed.stats().getGapsSkipped()).isEqualTo(2);
+    }
+
+    @Test
+    void resumeInsideTheRingReplaysOnlyWhatTheClientMissed() {
+        feed = settled(new TestFeed(dao, 100));
+        for (long id = 1; id <= 3; id++) dao.commit(id);
+        feed.poll();
+
+        Capture resumed = feed.subscribeCapturing(1L);
+        Capture upToDate = feed.subscribeCapturing(3L);
+        waitFor(() -> resumed.ids().equals(List.of(2L, 3L)));
+
+        dao.commit(4);
+        feed.poll();
+        waitFor(() -> resumed.ids().equals(List.of(2L, 3L, 4L)));
+        waitFor(() -> upToDate.ids().equals(List.of(4L)));
+    }
+
+    @Test
+    void resumeOlderThanTheRingIsBackfilledFromTheTable() {
+        feed = settled(new TestFeed(dao, 2));
+        for (long id = 1; id <= 5; id++) dao.commit(id);
+        feed.poll();
+
+        Capture resumed = feed.subscribeCapturing(1L);
+        waitFor(() -> resumed.ids().equals(List.of(2L, 3L, 4L, 5L)));
+        assertThat(feed.stats().getBackfills()).isEqualTo(1);
+    }
+
+    @Test
+    void resumeFromBeforeRetentionGetsAReset() {
+        feed = new TestFeed(dao, 100);
+        for (long id = 10; id <= 12; id++) dao.commit(id);
+        dao.lastIssued = 12;
+        dao.running(5, 5);
+        assertThat(feed.settle()).isTrue();
+
+        Capture resumed = feed.subscribeCapturing(3L);
+        waitFor(() -> resumed.text().contains("event:reset"));
+        assertThat(resumed.ids()).isEmpty();
+        assertThat(feed.stats().getResets()).isEqualTo(1);
+    }
+
+    private TestFeed settled(TestFeed f) {
+        dao.running(10, 10);
+        assertThat(f.settle()).isTrue();
+        return f;
+    }
+
+    private static void waitFor(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) throw new AssertionError("condition not reached");
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(ex);
+            }
+        }
+    }
+
+    private static final class TestFeed extends BookChangeFeed {
+
+        private Capture next;
+
+        TestFeed(BookChangeDao dao, int ringSize) {
+            super(dao, JsonMapper.builder().build(), mock(PlatformTransactionManager.class),
+                    true, 10, 500, ringSize, 0, 10_000, 100, 60_000, 60_000, 86_400_000, 60_000);
+        }
+
+        Capture subscribeCapturing(Long lastEventId) {
+            next = new Capture();
+            Capture capture = next;
+            subscribe(lastEventId);
+            return capture;
+        }
+
+        @Override
+        SseEmitter newEmitter() {
+            return next;
+        }
+    }
+
+    private static final class Capture extends SseEmitter {
+
+        private final List<String> frames = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void send(Set<DataWithMediaType> items) {
+            for (DataWithMediaType item : items) frames.add(item.getData().toString());
+        }
+
+        String text() {
+            return String.join("", frames);
+        }
+
+        List<Long> ids() {
+            Matcher m = BOOK_EVENT.matcher(text());
+            List<Long> ids = new ArrayList<>();
+            while (m.find()) ids.add(Long.parseLong(m.group(1)));
+            return ids;
+        }
+    }
+
+    // committed rows, the last id drawn from the sequence and the snapshot bounds the feed sees, all set by the test
+    private static final class FakeChangeDao implements BookChangeDao {
+
+        private final TreeMap<Long, BookVoChange> committed = new TreeMap<>();
+        volatile long lastIssued;
+        private volatile long xmin;
+        private volatile long xmax;
+
+        synchronized void commit(long id) {
+            committed.put(id, new BookVoChange(id, id * 10, BookVoChangeType.CREATE, 0L, Instant.EPOCH));
+            lastIssued = Math.max(lastIssued, id);
+        }
+
+        void running(long xmin, long xmax) {
+            this.xmin = xmin;
+            this.xmax = xmax;
+        }
+
+        @Override
+        public synchronized List<BookVoChange> findAfter(long afterId, int limit) {
+            return committed.tailMap(afterId, false).values().stream().limit(limit).toList();
+        }
+
+        @Override
+        public long findLastId() {
+            return lastIssued;
+        }
+
+        @Override
+        public long[] findSnapshotBounds() {
+            return new long[]{xmin, xmax};
+        }
+
+        @Override
+        public synchronized Long findFirstId() {
+            return committed.isEmpty() ? null : committed.firstKey();
+        }
+
+        @Override
+        public void append(BookVoChangeType type, long bookId, Long version) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void appendAll(BookVoChangeType type, List<Long> bookIds, List<Long> versions) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long[] deleteOlderThan(Instant cutoff, int limit) {
+            return new long[]{0, 0};
+        }
+    }
+}
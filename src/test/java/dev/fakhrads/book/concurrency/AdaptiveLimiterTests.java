@@ -0,0 +1,89 @@
+package dev.fakhrads.book.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveLimiterTests {
+
+    // a pool of 10 connections and 20ms queries: with n calls in flight each one takes 20ms * n / 10
+    private static final int POOL = 10;
+    private static final long QUERY_MS = 20;
+
+    @Test
+    void overloadConvergesOnTheLatencyTargetAndShedsTheRest() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(20, 2, 200, 0.9, 50);
+        int minLimit = Integer.MAX_VALUE, maxLimit = 0;
+        long admitted = 0, offered = 0, slowestMs = 0;
+
+        for (int round = 0; round < 500; round++) {
+            Round r = round(limiter, 200);
+            offered += 200;
+            if (round >= 100) {
+                minLimit = Math.min(minLimit, limiter.getLimit());
+                maxLimit = Math.max(maxLimit, limiter.getLimit());
+                admitted += r.admitted;
+                slowestMs = Math.max(slowestMs, r.latencyMs);
+            }
+        }
+
+        // 50ms target / 20ms per query * 10 connections = 25 concurrent calls
+        assertThat(minLimit).isGreaterThanOrEqualTo(15);
+        assertThat(maxLimit).isLessThanOrEqualTo(30);
+        assertThat(slowestMs).isLessThanOrEqualTo(60);
+        assertThat(admitted).isGreaterThan(0);
+        assertThat(limiter.getRejected()).isGreaterThan(offered / 2);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void limitRecoversOnceTheDatabaseIsFastAgain() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(20, 2, 200, 0.9, 50);
+        for (int round = 0; round < 200; round++) round(limiter, 200);
+        int overloaded = limiter.getLimit();
+
+        for (int round = 0; round < 200; round++) {
+            int held = 0;
+            while (held < 200 && limiter.tryAcquire()) held++;
+            for (int i = 0; i < held; i++) limiter.release(TimeUnit.MILLISECONDS.toNanos(5), false);
+        }
+
+        assertThat(limiter.getLimit()).isGreaterThan(overloaded * 2);
+    }
+
+    @Test
+    void aBurstOfPoolTimeoutsCutsTheLimitOncePerWindow() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(20, 2, 200, 0.9, 50);
+        for (int i = 0; i < 20; i++) assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+
+        for (int i = 0; i < 20; i++) limiter.release(TimeUnit.MILLISECONDS.toNanos(1), true);
+
+        assertThat(limiter.getLimit()).isEqualTo(18);
+        assertThat(limiter.getBackoffs()).isEqualTo(1);
+        assertThat(limiter.getRejected()).isEqualTo(1);
+    }
+
+    @Test
+    void idleTrafficDoesNotInflateTheLimit() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(20, 2, 200, 0.9, 50);
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(1), false);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(20);
+    }
+
+    private static Round round(AdaptiveLimiter limiter, int offered) {
+        int admitted = 0;
+        while (admitted < offered && limiter.tryAcquire()) admitted++;
+        for (int i = admitted; i < offered; i++) limiter.tryAcquire();
+        long latencyMs = QUERY_MS * Math.max(POOL, admitted) / POOL;
+        for (int i = 0; i < admitted; i++) limiter.release(TimeUnit.MILLISECONDS.toNanos(latencyMs), false);
+        return new Round(admitted, latencyMs);
+    }
+
+    private record Round(int admitted, long latencyMs) {}
+}
@@ -0,0 +1,100 @@
+package dev.fakhrads.book.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTests {
+
+    @Test
+    void concurrentCallersShareOneLoad() throws Exception {
+        SingleFlight<Long, String> flight = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<CompletableFuture<String>> callers = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                callers.add(CompletableFuture.supplyAsync(() -> flight.load(1L, id -> {
+                    loads.incrementAndGet();
+                    await(release);
+                    return "book-" + id;
+                }), executor));
+            }
+            waitFor(() -> flight.getShared() == 49);
+            release.countDown();
+
+            for (CompletableFuture<String> caller : callers) {
+                assertThat(caller.get(5, TimeUnit.SECONDS)).isEqualTo("book-1");
+            }
+        }
+        assertThat(loads).hasValue(1);
+        assertThat(flight.getLoads()).isEqualTo(1);
+        assertThat(flight.getInFlight()).isZero();
+    }
+
+    @Test
+    void failureIsSharedButNotRemembered() throws Exception {
+        SingleFlight<Long, String> flight = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> flight.load(1L, id -> {
+            await(release);
+            throw new IllegalStateException("db down");
+        }));
+        waitFor(() -> flight.getInFlight() == 1);
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> flight.load(1L, id -> "unused"));
+        waitFor(() -> flight.getShared() == 1);
+        release.countDown();
+
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasRootCauseMessage("db down");
+        assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).hasRootCauseMessage("db down");
+        assertThat(flight.load(1L, id -> "recovered")).isEqualTo("recovered");
+    }
+
+    @Test
+    void callersAfterForgetStartANewLoad() throws Exception {
+        SingleFlight<Long, String> flight = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> before = CompletableFuture.supplyAsync(() -> flight.load(1L, id -> {
+            await(release);
+            return "before write";
+        }));
+        waitFor(() -> flight.getInFlight() == 1);
+        flight.forget(1L);
+
+        assertThat(flight.load(1L, id -> "after write")).isEqualTo("after write");
+        release.countDown();
+        assertThat(before.get(5, TimeUnit.SECONDS)).isEqualTo("before write");
+        assertThat(flight.getLoads()).isEqualTo(2);
+        assertThat(flight.getShared()).isZero();
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) throw new AssertionError("condition not reached");
+            Thread.sleep(1);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
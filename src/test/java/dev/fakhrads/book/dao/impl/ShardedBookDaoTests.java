@@ -0,0 +1,235 @@
+package dev.fakhrads.book.dao.impl;
+
+import dev.fakhrads.book.config.FlywayConfig;
+import dev.fakhrads.book.entity.Book;
+import dev.fakhrads.book.shard.BookShards;
+import dev.fakhrads.book.vo.BookVoResponse;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// ShardedBookDao against one embedded Postgres holding the directory (its default database) and two shard databases
+@SpringJUnitConfig(ShardedBookDaoTests.Config.class)
+@TestPropertySource(properties = "book.shards.enabled=true")
+class ShardedBookDaoTests {
+
+    @Autowired
+    private ShardedBookDao dao;
+
+    @Autowired
+    private BookShards shards;
+
+    @Autowired
+    private DataSource directory;
+
+    @Autowired
+    private PlatformTransactionManager txManager;
+
+    private TransactionTemplate tx;
+
+    @BeforeEach
+    void emptyEveryDatabase() {
+        tx = new TransactionTemplate(txManager);
+        new JdbcTemplate(directory).execute("truncate book_isbn_shards");
+        for (int i = 0; i < shards.count(); i++) {
+            new JdbcTemplate(shards.shard(i)).execute("truncate books");
+        }
+    }
+
+    @Test
+    void createdBooksAreSpreadOverTheShardsAndReadByIdAndIsbn() {
+        List<Book> books = create(book("Dune", "111"), book("Emma", "222"), book("Ulysses", "333"));
+
+        assertThat(books).extracting(b -> shards.shardOf(b.getId())).contains(0, 1);
+        for (Book b : books) {
+            assertThat(read(() -> dao.findById(b.getId()))).get().extracting(BookVoResponse::getTitle).isEqualTo(b.getTitle());
+            assertThat(read(() -> dao.findByIsbn(b.getIsbn()))).get().extracting(BookVoResponse::getId).isEqualTo(b.getId());
+        }
+        assertThat(read(() -> dao.findExistingIsbns(List.of("111", "333", "999")))).containsExactlyInAnyOrder("111", "333");
+        assertThat(read(() -> dao.findAllById(List.of(books.get(2).getId(), books.get(1).getId(), 7L))))
+                .extracting(BookVoResponse::getIsbn).containsExactlyInAnyOrder("222", "333");
+        assertThat(read(() -> dao.findByIsbn("999"))).isEmpty();
+    }
+
+    @Test
+    void isbnMovesWithItsBookAndStaysUniqueAcrossShards() {
+        List<Book> books = create(book("Dune", "111"), book("Emma", "222"));
+        long dune = books.get(0).getId();
+        long emma = books.get(1).getId();
+        assertThat(shards.shardOf(dune)).isNotEqualTo(shards.shardOf(emma));
+
+        Book moved = new Book();
+        moved.setIsbn("444");
+        assertThat(write(() -> dao.patch(dune, 0L, moved))).get().extracting(BookVoResponse::getVersion).isEqualTo(1L);
+        assertThat(read(() -> dao.findByIsbn("444"))).get().extracting(BookVoResponse::getId).isEqualTo(dune);
+        assertThat(read(() -> dao.findByIsbn("111"))).isEmpty();
+
+        // a full update that keeps the ISBN leaves the routing row where it is
+        assertThat(write(() -> dao.update(dune, 1L, new Book(null, "Dune", "Herbert", "444", null)))).isPresent();
+        assertThat(read(() -> dao.findByIsbn("444"))).get().extracting(BookVoResponse::getAuthor).isEqualTo("Herbert");
+
+        Book taken = new Book();
+        taken.setIsbn("444");
+        assertThatThrownBy(() -> write(() -> dao.patch(emma, null, taken))).isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(read(() -> dao.findById(emma))).get().satisfies(b -> {
+            assertThat(b.getIsbn()).isEqualTo("222");
+            assertThat(b.getVersion()).isZero();
+        });
+        assertThat(read(() -> dao.findByIsbn("222"))).get().extracting(BookVoResponse::getId).isEqualTo(emma);
+
+        assertThatThrownBy(() -> create(book("Dune again", "444"))).isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void rollbackUndoesTheShardWritesWithTheRoutingRows() {
+        long emma = create(book("Emma", "222")).get(0).getId();
+        List<Long> created = new ArrayList<>();
+
+        tx.executeWithoutResult(status -> {
+            List<Book> books = List.of(book("Dune", "111"), book("Ulysses", "333"));
+            dao.saveAll(books);
+            books.forEach(b -> created.add(b.getId()));
+            dao.update(emma, 0L, new Book(null, "Emma", "Austen", "555", null));
+            status.setRollbackOnly();
+        });
+
+        assertThat(created).hasSize(2);
+        for (long id : created) {
+            assertThat(read(() -> dao.findById(id))).isEmpty();
+        }
+        assertThat(read(() -> dao.findExistingIsbns(List.of("111", "333", "555")))).isEmpty();
+        assertThat(read(() -> dao.findByIsbn("222"))).get().satisfies(b -> {
+            assertThat(b.getAuthor()).isEqualTo("Author");
+            assertThat(b.getVersion()).isZero();
+        });
+    }
+
+    @Test
+    void deleteRemovesTheBookAndFreesItsIsbn() {
+        long dune = create(book("Dune", "111")).get(0).getId();
+
+        assertThat(write(() -> dao.delete(dune, 3L))).isZero();
+        assertThat(read(() -> dao.findByIsbn("111"))).isPresent();
+
+        assertThat(write(() -> dao.delete(dune, 0L))).isEqualTo(1);
+        assertThat(read(() -> dao.findById(dune))).isEmpty();
+        assertThat(read(() -> dao.findExistingIsbns(List.of("111")))).isEmpty();
+        assertThat(create(book("Dune", "111"))).hasSize(1);
+    }
+
+    @Test
+    void keysetPagesMergeEveryShardInIdOrder() {
+        List<Long> ids = create(book("A", "1"), book("B", "2"), book("C", "3"), book("D", "4"), book("E", "5"))
+                .stream().map(Book::getId).sorted().toList();
+
+        List<BookVoResponse> first = read(() -> dao.findPage(null, 3));
+        assertThat(first).extracting(BookVoResponse::getId).containsExactlyElementsOf(ids.subList(0, 3));
+        List<BookVoResponse> second = read(() -> dao.findPage(first.get(2).getId(), 3));
+        assertThat(second).extracting(BookVoResponse::getId).containsExactlyElementsOf(ids.subList(3, 5));
+        assertThat(read(() -> dao.findPageVersions(ids.get(1), 2))).extracting(row -> row[0]).containsExactlyElementsOf(ids.subList(2, 4));
+    }
+
+    @Test
+    void searchMergesShardsByRankThenId() {
+        create(book("Dune", "1"), book("Dune Messiah", "2"), book("Emma", "3"), book("Children of Dune", "4"),
+                book("Dune Dune", "5"));
+
+        List<BookVoResponse> hits = read(() -> dao.search("dune", 0, 10));
+        assertThat(hits).extracting(BookVoResponse::getTitle)
+                .containsExactlyInAnyOrder("Dune", "Dune Messiah", "Children of Dune", "Dune Dune");
+        // the title that repeats the word ranks first; equal ranks come back by id
+        assertThat(hits.get(0).getTitle()).isEqualTo("Dune Dune");
+        assertThat(hits.subList(1, 4)).isSortedAccordingTo(Comparator.comparing(BookVoResponse::getId));
+
+        assertThat(read(() -> dao.search("dune", 1, 2))).extracting(BookVoResponse::getId)
+                .containsExactly(hits.get(1).getId(), hits.get(2).getId());
+    }
+
+    private List<Book> create(Book... books) {
+        List<Book> list = List.of(books);
+        tx.executeWithoutResult(status -> dao.saveAll(list));
+        return list;
+    }
+
+    private <T> T write(Supplier<T> work) {
+        return tx.execute(status -> work.get());
+    }
+
+    private <T> T read(Supplier<T> work) {
+        TransactionTemplate readTx = new TransactionTemplate(txManager);
+        readTx.setReadOnly(true);
+        return readTx.execute(status -> work.get());
+    }
+
+    private static Book book(String title, String isbn) {
+        return new Book(null, title, "Author", isbn, LocalDate.of(2001, 1, 1));
+    }
+
+    @Configuration
+    @Import({FlywayConfig.class, ShardedBookDao.class})
+    static class Config {
+
+        @Bean(destroyMethod = "close")
+        EmbeddedPostgres postgres() throws IOException, SQLException {
+            EmbeddedPostgres pg = EmbeddedPostgres.start();
+            try (Connection conn = pg.getPostgresDatabase().getConnection(); Statement st = conn.createStatement()) {
+                st.execute("create database shard0");
+                st.execute("create database shard1");
+            }
+            return pg;
+        }
+
+        @Bean
+        DataSource dataSource(EmbeddedPostgres pg) {
+            return pg.getPostgresDatabase();
+        }
+
+        @Bean(destroyMethod = "close")
+        BookShards bookShards(EmbeddedPostgres pg) {
+            return new BookShards(List.of(pg.getDatabase("postgres", "shard0"), pg.getDatabase("postgres", "shard1")), 5_000);
+        }
+
+        @Bean
+        LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+            LocalContainerEntityManagerFactoryBean emf = new LocalContainerEntityManagerFactoryBean();
+            emf.setDataSource(dataSource);
+            emf.setManagedTypes(PersistenceManagedTypes.of(Book.class.getName()));
+            emf.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+            return emf;
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager(EntityManagerFactory emf) {
+            return new JpaTransactionManager(emf);
+        }
+    }
+}
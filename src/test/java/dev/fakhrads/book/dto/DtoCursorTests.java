@@ -0,0 +1,35 @@
+package dev.fakhrads.book.dto;
+
+import dev.fakhrads.book.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DtoCursorTests {
+
+    @Test
+    void keysetAndOffsetCursorsRoundTrip() {
+        assertThat(DtoCursor.decode(DtoCursor.encode(1025L))).isEqualTo(1025L);
+        assertThat(DtoCursor.decodeOffset(DtoCursor.encodeOffset(50L))).isEqualTo(50L);
+        assertThat(DtoCursor.encode(null)).isNull();
+        assertThat(DtoCursor.decodeOffset(" ")).isNull();
+    }
+
+    @Test
+    void cursorOfOneKindIsRejectedAsTheOther() {
+        String searchCursor = DtoCursor.encodeOffset(50L);
+        String listCursor = DtoCursor.encode(50L);
+
+        assertThat(searchCursor).isNotEqualTo(listCursor);
+        assertThatThrownBy(() -> DtoCursor.decode(searchCursor)).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> DtoCursor.decodeOffset(listCursor)).isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void malformedCursorsAreRejected() {
+        assertThatThrownBy(() -> DtoCursor.decode("not base64!")).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> DtoCursor.decode(DtoCursor.encode(-1L))).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> DtoCursor.decodeOffset("bzp4")).isInstanceOf(BadRequestException.class);
+    }
+}
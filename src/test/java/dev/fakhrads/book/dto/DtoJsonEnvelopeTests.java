@@ -0,0 +1,81 @@
+package dev.fakhrads.book.dto;
+
+import dev.fakhrads.book.cache.BookJsonCache;
+import dev.fakhrads.book.vo.BookVoResponse;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.jackson.autoconfigure.JacksonAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.support.ResourcePropertySource;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.JacksonJsonHttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The pre-encoded envelope has to be byte-identical to what MVC writes for the same DtoResponse, so both sides use
+// the JsonMapper Boot builds from application.properties and the expected body goes through the JSON converter.
+class DtoJsonEnvelopeTests {
+
+    private static JsonMapper mapper;
+
+    @BeforeAll
+    static void bootMapper() {
+        AtomicReference<JsonMapper> configured = new AtomicReference<>();
+        new ApplicationContextRunner()
+                .withInitializer(ctx -> {
+                    try {
+                        ctx.getEnvironment().getPropertySources()
+                                .addFirst(new ResourcePropertySource("classpath:application.properties"));
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                })
+                .withConfiguration(AutoConfigurations.of(JacksonAutoConfiguration.class))
+                .run(ctx -> configured.set(ctx.getBean(JsonMapper.class)));
+        mapper = configured.get();
+    }
+
+    @Test
+    void matchesConverterOutputForTrickyStrings() throws IOException {
+        BookVoResponse book = new BookVoResponse(7L, "Quote \" back\\slash \u0001 tab\t nl\n cr\r ff\f bs\b é 中文 😀 </script>",
+                "Ünïcode \u001F \u007F", null, LocalDate.of(1999, 12, 31), 3L);
+
+        assertSameBytes(book, "O\"K\u0000", Instant.parse("2026-10-18T00:50:10.365282575Z"), "/api/books/7?x=\"1\"");
+    }
+
+    @Test
+    void matchesConverterOutputForTimestampPrecisionsAndNulls() throws IOException {
+        BookVoResponse book = new BookVoResponse(8L, null, null, null, null, 0L);
+
+        assertSameBytes(book, "OK", Instant.parse("2026-01-01T00:00:00Z"), "/api/books/8");
+        assertSameBytes(book, "OK", Instant.parse("2026-01-01T00:00:00.100Z"), "/api/books/8");
+        assertSameBytes(book, "OK", Instant.parse("2026-01-01T00:00:00.000001Z"), null);
+    }
+
+    private static void assertSameBytes(BookVoResponse book, String message, Instant timestamp, String path) throws IOException {
+        DtoResponse<BookVoResponse> res = new DtoResponse<>(true, message, book, timestamp, path);
+        MockHttpOutputMessage converted = new MockHttpOutputMessage();
+        new JacksonJsonHttpMessageConverter(mapper).write(res, ResolvableType.forInstance(res), MediaType.APPLICATION_JSON,
+                converted, null);
+        byte[] expected = converted.getBodyAsBytes();
+
+        // the same payload bytes BookRest takes from BookJsonCache
+        byte[] payload = new BookJsonCache(mapper, true, 10).encode(book);
+        byte[] actual = DtoJsonEnvelope.ok(message, payload, timestamp, path);
+
+        assertThat(new String(actual, StandardCharsets.UTF_8))
+                .isEqualTo(new String(expected, StandardCharsets.UTF_8));
+        assertThat(actual).isEqualTo(expected);
+    }
+}
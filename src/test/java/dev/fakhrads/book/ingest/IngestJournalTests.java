@@ -0,0 +1,46 @@
+package dev.fakhrads.book.ingest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IngestJournalTests {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void recoverReturnsOnlyUnfinishedJobsAndCompactsTheFile() throws Exception {
+        Path file = dir.resolve("ingest.journal");
+        try (IngestJournal journal = new IngestJournal(file, false)) {
+            journal.accepted("a", 1L, "{\"isbn\":\"1\"}");
+            journal.accepted("b", 2L, "{\"isbn\":\"2\"}");
+            journal.accepted("c", 3L, "{\"isbn\":\"3\"}");
+            journal.done(List.of("b"));
+        }
+        // a crash in the middle of an append
+        Files.writeString(file, "A\td\t4", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        try (IngestJournal journal = new IngestJournal(file, false)) {
+            List<IngestJournal.Entry> pending = journal.recover();
+            assertThat(pending).extracting(IngestJournal.Entry::jobId).containsExactly("a", "c");
+            assertThat(pending.get(1).acceptedAtMs()).isEqualTo(3L);
+            assertThat(pending.get(1).json()).isEqualTo("{\"isbn\":\"3\"}");
+        }
+        assertThat(Files.readAllLines(file)).hasSize(2).allMatch(line -> line.startsWith("A\t"));
+
+        try (IngestJournal journal = new IngestJournal(file, false)) {
+            assertThat(journal.recover()).hasSize(2);
+            journal.clear();
+            assertThat(journal.size()).isZero();
+            assertThat(journal.recover()).isEmpty();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package dev.fakhrads.book.rest;
+
+import dev.fakhrads.book.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BookEtagsTests {
+
+    @Test
+    void eachRepresentationHasItsOwnTagAndAllOfThemMatchTheVersion() {
+        assertThat(BookEtags.ofVersion(4L, MediaType.APPLICATION_JSON)).isEqualTo("\"4\"");
+        assertThat(BookEtags.ofVersion(4L, MediaType.APPLICATION_CBOR)).isEqualTo("\"4-cbor\"");
+        assertThat(BookEtags.ofVersion(4L, BookRest.SMILE)).isEqualTo("\"4-smile\"");
+
+        assertThat(BookEtags.parseIfMatch("\"4\"")).isEqualTo(4L);
+        assertThat(BookEtags.parseIfMatch("\"4-cbor\"")).isEqualTo(4L);
+        assertThat(BookEtags.parseIfMatch("\"4-smile\"")).isEqualTo(4L);
+        assertThat(BookEtags.parseIfMatch("\"4-xml\"")).isEqualTo(-1L);
+    }
+
+    @Test
+    void ifMatchOnlyAcceptsOneStrongTag() {
+        assertThat(BookEtags.parseIfMatch(null)).isNull();
+        assertThat(BookEtags.parseIfMatch(" ")).isNull();
+        assertThat(BookEtags.parseIfMatch("*")).isNull();
+        assertThat(BookEtags.parseIfMatch(" \"4\" ")).isEqualTo(4L);
+
+        // weak, unquoted and non-numeric tags can never match a row version
+        assertThat(BookEtags.parseIfMatch("W/\"4\"")).isEqualTo(-1L);
+        assertThat(BookEtags.parseIfMatch("4")).isEqualTo(-1L);
+        assertThat(BookEtags.parseIfMatch("\"\"")).isEqualTo(-1L);
+        assertThat(BookEtags.parseIfMatch("\"abc\"")).isEqualTo(-1L);
+        assertThat(BookEtags.parseIfMatch("W/\"p-4\"")).isEqualTo(-1L);
+
+        assertThatThrownBy(() -> BookEtags.parseIfMatch("\"4\", \"5\"")).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> BookEtags.parseIfMatch("\"4\", *")).isInstanceOf(BadRequestException.class);
+    }
+}
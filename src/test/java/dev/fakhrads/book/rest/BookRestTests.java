@@ -0,0 +1,72 @@
+package dev.fakhrads.book.rest;
+
+import dev.fakhrads.book.cache.BookJsonCache;
+import dev.fakhrads.book.changes.BookChangeFeed;
+import dev.fakhrads.book.ingest.BookIngestQueue;
+import dev.fakhrads.book.service.BookImportService;
+import dev.fakhrads.book.service.BookService;
+import dev.fakhrads.book.vo.BookVoResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.LocalDate;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class BookRestTests {
+
+    private final BookService service = mock(BookService.class);
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        JsonMapper mapper = JsonMapper.builder().build();
+        BookRest rest = new BookRest(service, mock(BookImportService.class), new BookJsonCache(mapper, true, 100),
+                mock(BookIngestQueue.class), mock(BookChangeFeed.class), mapper);
+        mvc = MockMvcBuilders.standaloneSetup(rest).build();
+
+        when(service.findById(7L)).thenReturn(new BookVoResponse(7L, "Dune", "Herbert", "9780441013593", LocalDate.of(1965, 8, 1), 3L));
+        when(service.findVersion(7L)).thenReturn(3L);
+    }
+
+    @Test
+    void jsonEtagDoesNotRevalidateACborRepresentation() throws Exception {
+        String jsonTag = mvc.perform(get("/api/books/7").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // same version, other encoding: a 304 here would hand a CBOR client the JSON body it cached
+        mvc.perform(get("/api/books/7").accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, jsonTag))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3-cbor\""))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+
+        mvc.perform(get("/api/books/7").accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, "\"3-cbor\""))
+                .andExpect(status().isNotModified());
+        mvc.perform(get("/api/books/7").accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, "\"3-cbor\""))
+                .andExpect(status().isOk());
+        mvc.perform(get("/api/books/7").accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, jsonTag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void smileIsPickedByQualityAndTaggedAsSmile() throws Exception {
+        mvc.perform(get("/api/books/7").header(HttpHeaders.ACCEPT, "application/cbor;q=0.5, application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(BookRest.SMILE))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3-smile\""));
+    }
+}
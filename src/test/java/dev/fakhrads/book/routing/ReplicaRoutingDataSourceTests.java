@@ -0,0 +1,103 @@
+package dev.fakhrads.book.routing;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReplicaRoutingDataSourceTests {
+
+    @Test
+    void readOnlyConnectionsGoToTheReplica() throws Exception {
+        Connection primary = connection(0);
+        Connection replica = connection(0);
+        try (ReplicaRoutingDataSource ds = routing(primary, replica, 1000)) {
+            assertThat(physical(ds, true)).isSameAs(replica);
+            assertThat(physical(ds, false)).isSameAs(primary);
+        }
+    }
+
+    @Test
+    void primaryScopeOverridesReadOnlyRouting() throws Exception {
+        Connection primary = connection(0);
+        Connection replica = connection(0);
+        try (ReplicaRoutingDataSource ds = routing(primary, replica, 1000)) {
+            Connection routed = ReadRouting.onPrimary(() -> physicalUnchecked(ds));
+            assertThat(routed).isSameAs(primary);
+            assertThat(ReadRouting.primaryRequired()).isFalse();
+        }
+    }
+
+    @Test
+    void laggingReplicaIsTakenOutOfRotation() throws Exception {
+        Connection primary = connection(0);
+        Connection replica = connection(5000);
+        try (ReplicaRoutingDataSource ds = routing(primary, replica, 1000)) {
+            assertThat(ds.isReplicaUsable()).isFalse();
+            assertThat(ds.getReplicaLagMs()).isEqualTo(5000);
+            assertThat(physical(ds, true)).isSameAs(primary);
+        }
+    }
+
+    @Test
+    void failedReplicaCheckoutFallsBackToThePrimary() throws Exception {
+        Connection primary = connection(0);
+        DataSource replicaPool = mock(DataSource.class);
+        Connection replica = connection(0);
+        when(replicaPool.getConnection()).thenReturn(replica).thenThrow(new SQLTransientConnectionException("down"));
+        try (ReplicaRoutingDataSource ds = new ReplicaRoutingDataSource(pool(primary), replicaPool, 1000, 60_000)) {
+            assertThat(ds.isReplicaUsable()).isTrue();
+            assertThat(physical(ds, true)).isSameAs(primary);
+            assertThat(ds.isReplicaUsable()).isFalse();
+        }
+    }
+
+    private static ReplicaRoutingDataSource routing(Connection primary, Connection replica, long maxLagMs) throws SQLException {
+        return new ReplicaRoutingDataSource(pool(primary), pool(replica), maxLagMs, 60_000);
+    }
+
+    private static DataSource pool(Connection connection) throws SQLException {
+        DataSource ds = mock(DataSource.class);
+        when(ds.getConnection()).thenReturn(connection);
+        return ds;
+    }
+
+    // a connection whose lag query reports the given lag
+    private static Connection connection(double lagMs) throws SQLException {
+        Connection c = mock(Connection.class);
+        Statement st = mock(Statement.class);
+        ResultSet rs = mock(ResultSet.class);
+        when(c.createStatement()).thenReturn(st);
+        when(st.executeQuery(anyString())).thenReturn(rs);
+        when(rs.next()).thenReturn(true);
+        when(rs.getDouble(1)).thenReturn(lagMs);
+        return c;
+    }
+
+    // the proxy only picks a target on first real use, after the transaction manager has set the read-only flag
+    private static Connection physical(ReplicaRoutingDataSource ds, boolean readOnly) throws SQLException {
+        try (Connection proxy = ds.getConnection()) {
+            proxy.setReadOnly(readOnly);
+            proxy.createStatement();
+            return ((ConnectionProxy) proxy).getTargetConnection();
+        }
+    }
+
+    private static Connection physicalUnchecked(ReplicaRoutingDataSource ds) {
+        try {
+            return physical(ds, true);
+        } catch (SQLException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package dev.fakhrads.book.service.impl;
+
+import dev.fakhrads.book.cache.BookCache;
+import dev.fakhrads.book.config.FlywayConfig;
+import dev.fakhrads.book.dao.impl.BookChangeDaoImpl;
+import dev.fakhrads.book.dao.impl.BookDaoImpl;
+import dev.fakhrads.book.entity.Book;
+import dev.fakhrads.book.exception.NotFoundException;
+import dev.fakhrads.book.exception.PreconditionFailedException;
+import dev.fakhrads.book.service.BookService;
+import dev.fakhrads.book.suggest.BookSuggestIndex;
+import dev.fakhrads.book.vo.BookVoBulkItemResult;
+import dev.fakhrads.book.vo.BookVoBulkResponse;
+import dev.fakhrads.book.vo.BookVoBulkStatus;
+import dev.fakhrads.book.vo.BookVoCreateRequest;
+import dev.fakhrads.book.vo.BookVoPatchRequest;
+import dev.fakhrads.book.vo.BookVoResponse;
+import dev.fakhrads.book.vo.BookVoUpdateRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.SequenceGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+// BookServiceImpl over BookDaoImpl and an embedded Postgres migrated by the real Flyway migrations
+@SpringJUnitConfig(BookServiceImplPostgresTests.Config.class)
+class BookServiceImplPostgresTests {
+
+    @Autowired
+    private BookService service;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void emptyTheTables() {
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("truncate books, book_changes");
+    }
+
+    @Test
+    void bulkReportsEveryItemWithoutFailingTheBatch() {
+        service.createBulk(List.of(request("Dune", "111")));
+
+        BookVoBulkResponse res = service.createBulk(List.of(
+                request("Emma", "222"),
+                request("Dune again", "111"),
+                request("", "333"),
+                request("Ulysses", "444"),
+                request("Emma again", "222"),
+                request("Middlemarch", "555")));
+
+        assertThat(res.getItems()).extracting(BookVoBulkItemResult::getStatus).containsExactly(
+                BookVoBulkStatus.CREATED,
+                BookVoBulkStatus.DUPLICATE_ISBN,
+                BookVoBulkStatus.INVALID,
+                BookVoBulkStatus.CREATED,
+                BookVoBulkStatus.DUPLICATE_ISBN,
+                BookVoBulkStatus.CREATED);
+        assertThat(res.getItems()).extracting(BookVoBulkItemResult::getIndex).containsExactly(0, 1, 2, 3, 4, 5);
+        assertThat(res.getItems().get(1).getMessage()).isEqualTo("ISBN already exists");
+        assertThat(res.getItems().get(4).getMessage()).isEqualTo("ISBN repeated within the batch");
+        assertThat(res.getItems().get(2).getMessage()).contains("title");
+        assertThat(res.getCreated()).isEqualTo(3);
+        assertThat(res.getRejected()).isEqualTo(3);
+
+        for (BookVoBulkItemResult item : res.getItems()) {
+            if (item.getStatus() == BookVoBulkStatus.CREATED) {
+                assertThat(service.findById(item.getId()).getIsbn()).isEqualTo(item.getIsbn());
+            } else {
+                assertThat(item.getId()).isNull();
+            }
+        }
+        assertThat(jdbc.queryForList("select isbn from books order by isbn", String.class))
+                .containsExactly("111", "222", "444", "555");
+        assertThat(jdbc.queryForObject("select title from books where isbn = '222'", String.class)).isEqualTo("Emma");
+        assertThat(jdbc.queryForObject("select count(*) from book_changes where op = 'CREATE'", Long.class)).isEqualTo(4);
+    }
+
+    @Test
+    void bulkIdsComeFromThePooledSequenceInBlocksOfFifty() throws Exception {
+        // V2's INCREMENT BY has to match the entity's allocationSize, or the pooled optimizer hands out taken ids
+        int allocationSize = Book.class.getDeclaredField("id").getAnnotation(SequenceGenerator.class).allocationSize();
+        assertThat(allocationSize).isEqualTo(50);
+        assertThat(jdbc.queryForObject("select increment_by from pg_sequences where sequencename = 'books_id_seq'", Long.class))
+                .isEqualTo(allocationSize);
+        long before = lastSequenceValue();
+
+        BookVoBulkResponse res = service.createBulk(IntStream.range(0, 60).mapToObj(i -> request("Book " + i, "isbn-" + i)).toList());
+
+        List<Long> ids = res.getItems().stream().map(BookVoBulkItemResult::getId).toList();
+        assertThat(ids).doesNotContainNull();
+        // one contiguous run: Hibernate hands out ids from its block and only calls nextval when a block runs out
+        for (int i = 1; i < ids.size(); i++) {
+            assertThat(ids.get(i)).isEqualTo(ids.get(i - 1) + 1);
+        }
+        long advanced = lastSequenceValue() - before;
+        assertThat(advanced % 50).isZero();
+        assertThat(advanced).isBetween(50L, 100L);
+    }
+
+    @Test
+    void staleVersionIsAPreconditionFailureAndAMissingIdIsNotFound() {
+        long id = createOne("Dune", "111");
+        BookVoPatchRequest patch = new BookVoPatchRequest();
+        patch.setTitle("Dune Messiah");
+
+        assertThatThrownBy(() -> service.patch(id, patch, 7L)).isInstanceOf(PreconditionFailedException.class);
+        assertThatThrownBy(() -> service.update(id, update("Dune Messiah", "111"), 7L)).isInstanceOf(PreconditionFailedException.class);
+        assertThatThrownBy(() -> service.delete(id, 7L)).isInstanceOf(PreconditionFailedException.class);
+        assertThat(service.findById(id).getVersion()).isZero();
+        assertThat(jdbc.queryForObject("select count(*) from book_changes where op <> 'CREATE'", Long.class)).isZero();
+
+        // with or without If-Match, an id that was never there is 404, not 412
+        long missing = id + 1_000;
+        assertThatThrownBy(() -> service.patch(missing, patch, 0L)).isInstanceOf(NotFoundException.class);
+        assertThatThrownBy(() -> service.patch(missing, patch, null)).isInstanceOf(NotFoundException.class);
+        assertThatThrownBy(() -> service.update(missing, update("Emma", "222"), 0L)).isInstanceOf(NotFoundException.class);
+        assertThatThrownBy(() -> service.delete(missing, null)).isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    void patchChangesOnlyTheFieldsItCarries() {
+        long id = createOne("Dune", "111");
+        BookVoPatchRequest patch = new BookVoPatchRequest();
+        patch.setAuthor("Herbert");
+
+        BookVoResponse patched = service.patch(id, patch, 0L);
+
+        assertThat(patched.getVersion()).isEqualTo(1L);
+        Map<String, Object> row = jdbc.queryForMap("select title, author, isbn, published_date, version from books where id = ?", id);
+        assertThat(row).containsEntry("title", "Dune")
+                .containsEntry("author", "Herbert")
+                .containsEntry("isbn", "111")
+                .containsEntry("published_date", Date.valueOf(LocalDate.of(2001, 1, 1)))
+                .containsEntry("version", 1L);
+        // the cached entry was evicted on commit, so the next read sees the patch
+        assertThat(service.findById(id).getAuthor()).isEqualTo("Herbert");
+    }
+
+    @Test
+    void emptyPatchChecksIfMatchWithoutWriting() {
+        long id = createOne("Dune", "111");
+        BookVoPatchRequest empty = new BookVoPatchRequest();
+
+        assertThatThrownBy(() -> service.patch(id, empty, 3L)).isInstanceOf(PreconditionFailedException.class);
+        assertThat(service.patch(id, empty, 0L).getVersion()).isZero();
+        assertThat(service.patch(id, empty, null).getVersion()).isZero();
+        assertThatThrownBy(() -> service.patch(id + 1_000, empty, 0L)).isInstanceOf(NotFoundException.class);
+        assertThat(jdbc.queryForObject("select version from books where id = ?", Long.class, id)).isZero();
+        assertThat(jdbc.queryForObject("select count(*) from book_changes where op = 'UPDATE'", Long.class)).isZero();
+    }
+
+    private long createOne(String title, String isbn) {
+        return service.createBulk(List.of(request(title, isbn))).getItems().get(0).getId();
+    }
+
+    private long lastSequenceValue() {
+        return jdbc.queryForObject("select last_value from books_id_seq", Long.class);
+    }
+
+    private static BookVoCreateRequest request(String title, String isbn) {
+        BookVoCreateRequest req = new BookVoCreateRequest();
+        req.setTitle(title);
+        req.setAuthor("Author");
+        req.setIsbn(isbn);
+        req.setPublishedDate(LocalDate.of(2001, 1, 1));
+        return req;
+    }
+
+    private static BookVoUpdateRequest update(String title, String isbn) {
+        BookVoUpdateRequest req = new BookVoUpdateRequest();
+        req.setTitle(title);
+        req.setAuthor("Author");
+        req.setIsbn(isbn);
+        req.setPublishedDate(LocalDate.of(2001, 1, 1));
+        return req;
+    }
+
+    @Configuration
+    @EnableTransactionManagement
+    @Import({FlywayConfig.class, BookDaoImpl.class, BookChangeDaoImpl.class, BookCache.class, BookServiceImpl.class})
+    static class Config {
+
+        @Bean(destroyMethod = "close")
+        EmbeddedPostgres postgres() throws IOException {
+            return EmbeddedPostgres.start();
+        }
+
+        @Bean
+        DataSource dataSource(EmbeddedPostgres pg) {
+            return pg.getPostgresDatabase();
+        }
+
+        @Bean
+        LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+            LocalContainerEntityManagerFactoryBean emf = new LocalContainerEntityManagerFactoryBean();
+            emf.setDataSource(dataSource);
+            emf.setManagedTypes(PersistenceManagedTypes.of(Book.class.getName()));
+            emf.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+            // the batching settings DbConfig uses, so bulk inserts take the same path as in the application
+            Properties props = new Properties();
+            props.put("hibernate.jdbc.batch_size", "50");
+            props.put("hibernate.order_inserts", "true");
+            emf.setJpaProperties(props);
+            return emf;
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager(EntityManagerFactory emf) {
+            return new JpaTransactionManager(emf);
+        }
+
+        @Bean
+        LocalValidatorFactoryBean validator() {
+            return new LocalValidatorFactoryBean();
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        BookSuggestIndex suggestIndex() {
+            return mock(BookSuggestIndex.class);
+        }
+    }
+}
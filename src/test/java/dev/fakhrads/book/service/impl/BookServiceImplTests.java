@@ -0,0 +1,112 @@
+package dev.fakhrads.book.service.impl;
+
+import dev.fakhrads.book.cache.BookCache;
+import dev.fakhrads.book.dao.BookChangeDao;
+import dev.fakhrads.book.dao.BookDao;
+import dev.fakhrads.book.exception.BadRequestException;
+import dev.fakhrads.book.suggest.BookSuggestIndex;
+import dev.fakhrads.book.vo.BookVoLookupResponse;
+import dev.fakhrads.book.vo.BookVoResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class BookServiceImplTests {
+
+    private final BookDao dao = mock(BookDao.class);
+    private final BookCache cache = new BookCache(true, 100, 60_000);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final BookServiceImpl service = new BookServiceImpl(dao, mock(BookChangeDao.class), cache,
+            mock(BookSuggestIndex.class), mock(Validator.class), mock(PlatformTransactionManager.class), registry,
+            50, 500, 1000, 5000, 500, 200, 10, 50, 3);
+
+    @Test
+    void lookupAnswersInRequestOrderWithDuplicatesCollapsedAndMissingIdsListed() {
+        when(dao.findAllById(any())).thenReturn(List.of(book(9), book(4)));
+
+        BookVoLookupResponse res = service.findByIds(List.of(4L, 9L, 4L));
+        assertThat(res.getItems()).extracting(BookVoResponse::getId).containsExactly(4L, 9L);
+        assertThat(res.getMissing()).isEmpty();
+
+        when(dao.findAllById(any())).thenReturn(List.of(book(2)));
+        res = service.findByIds(List.of(5L, 2L, 5L));
+        assertThat(res.getItems()).extracting(BookVoResponse::getId).containsExactly(2L);
+        assertThat(res.getMissing()).containsExactly(5L);
+    }
+
+    @Test
+    void lookupOnlyQueriesTheIdsTheCacheDoesNotHold() {
+        cache.get(2L, BookServiceImplTests::book);
+        when(dao.findAllById(List.of(1L, 3L))).thenReturn(List.of(book(3)));
+
+        BookVoLookupResponse res = service.findByIds(List.of(1L, 2L, 3L));
+
+        assertThat(res.getItems()).extracting(BookVoResponse::getId).containsExactly(2L, 3L);
+        assertThat(res.getMissing()).containsExactly(1L);
+        verify(dao).findAllById(List.of(1L, 3L));
+    }
+
+    @Test
+    void lookupFullyServedFromTheCacheSkipsTheDatabase() {
+        cache.get(1L, BookServiceImplTests::book);
+        cache.get(2L, BookServiceImplTests::book);
+
+        assertThat(service.findByIds(List.of(2L, 1L)).getItems()).extracting(BookVoResponse::getId).containsExactly(2L, 1L);
+        verifyNoInteractions(dao);
+    }
+
+    @Test
+    void lookupRejectsEmptyOversizedAndNullIdLists() {
+        assertThatThrownBy(() -> service.findByIds(null)).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> service.findByIds(List.of())).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> service.findByIds(LongStream.rangeClosed(1, 4).boxed().toList()))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("3");
+        assertThatThrownBy(() -> service.findByIds(Arrays.asList(1L, null)))
+                .isInstanceOf(BadRequestException.class);
+        // the limit counts ids as sent, before duplicates collapse
+        assertThatThrownBy(() -> service.findByIds(Collections.nCopies(4, 1L))).isInstanceOf(BadRequestException.class);
+        verifyNoInteractions(dao);
+    }
+
+    @Test
+    void exportRecordsRowsDurationAndThroughputPerOutcome() {
+        when(dao.streamAll(anyInt())).thenReturn(Stream.of(book(1), book(2), book(3)));
+        List<BookVoResponse> written = new ArrayList<>();
+
+        assertThat(service.exportAll(written::add)).isEqualTo(3);
+
+        assertThat(written).hasSize(3);
+        assertThat(registry.get("book.export.rows").tag("outcome", "completed").counter().count()).isEqualTo(3);
+        assertThat(registry.get("book.export").tag("outcome", "completed").timer().count()).isEqualTo(1);
+        assertThat(registry.get("book.export.throughput").tag("outcome", "completed").summary().count()).isEqualTo(1);
+
+        when(dao.streamAll(anyInt())).thenReturn(Stream.of(book(1), book(2)));
+        assertThatThrownBy(() -> service.exportAll(b -> {
+            if (b.getId() == 2) throw new IllegalStateException("client went away");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(registry.get("book.export.rows").tag("outcome", "aborted").counter().count()).isEqualTo(1);
+    }
+
+    private static BookVoResponse book(long id) {
+        return new BookVoResponse(id, "Title " + id, "Author", "isbn-" + id, LocalDate.of(2001, 1, 1), 0L);
+    }
+}
@@ -0,0 +1,61 @@
+package dev.fakhrads.book.shard;
+
+import org.junit.jupiter.api.Test;
+import org.postgresql.ds.PGSimpleDataSource;
+import org.springframework.dao.QueryTimeoutException;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BookShardsTests {
+
+    @Test
+    void idsRouteBackToTheShardThatIssuedThem() throws Exception {
+        try (BookShards shards = shards(3, 1000)) {
+            assertThat(shards.shardOf(BookShards.encode(51, 2))).isEqualTo(2);
+            assertThat(shards.shardOf(BookShards.encode(1, 0))).isZero();
+            assertThat(shards.shardOf(BookShards.SLOTS + 5L)).isEqualTo(-1);
+            assertThat(List.of(shards.place(), shards.place(), shards.place(), shards.place())).containsExactly(0, 1, 2, 0);
+        }
+
+        assertThatThrownBy(() -> new BookShards(List.of(), 1000)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void scatterReturnsResultsInShardOrder() throws Exception {
+        try (BookShards shards = shards(3, 1000)) {
+            List<Integer> results = shards.scatter((shard, ds) -> {
+                Thread.sleep(30L * (3 - shard));
+                return shard;
+            });
+
+            assertThat(results).containsExactly(0, 1, 2);
+        }
+    }
+
+    @Test
+    void scatterFailsWithTheShardErrorOrAfterTheTimeout() throws Exception {
+        try (BookShards shards = shards(2, 100)) {
+            assertThatThrownBy(() -> shards.scatter((shard, ds) -> {
+                if (shard == 1) throw new IllegalStateException("shard 1 is down");
+                return shard;
+            })).isInstanceOf(IllegalStateException.class).hasMessage("shard 1 is down");
+
+            assertThatThrownBy(() -> shards.scatter((shard, ds) -> {
+                Thread.sleep(5_000);
+                return shard;
+            })).isInstanceOf(QueryTimeoutException.class);
+        }
+    }
+
+    private static BookShards shards(int count, long scatterTimeoutMs) {
+        List<DataSource> dataSources = IntStream.range(0, count)
+                .<DataSource>mapToObj(i -> new PGSimpleDataSource())
+                .toList();
+        return new BookShards(dataSources, scatterTimeoutMs);
+    }
+}
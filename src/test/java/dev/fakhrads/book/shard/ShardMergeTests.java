@@ -0,0 +1,26 @@
+package dev.fakhrads.book.shard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShardMergeTests {
+
+    @Test
+    void mergesSortedShardPagesIntoOneKeysetPage() {
+        List<List<Long>> pages = List.of(List.of(1024L, 4096L, 7168L), List.of(1025L, 2049L), List.of(), List.of(3074L));
+
+        assertThat(ShardMerge.merge(pages, Comparator.<Long>naturalOrder(), 0, 4)).containsExactly(1024L, 1025L, 2049L, 3074L);
+        assertThat(ShardMerge.merge(pages, Comparator.<Long>naturalOrder(), 4, 4)).containsExactly(4096L, 7168L);
+    }
+
+    @Test
+    void keepsDescendingOrderAcrossShards() {
+        List<List<Integer>> ranked = List.of(List.of(9, 4, 1), List.of(8, 7, 2));
+
+        assertThat(ShardMerge.merge(ranked, Comparator.<Integer>reverseOrder(), 1, 3)).containsExactly(8, 7, 4);
+    }
+}
@@ -0,0 +1,88 @@
+package dev.fakhrads.book.suggest;
+
+import dev.fakhrads.book.vo.BookVoResponse;
+import dev.fakhrads.book.vo.BookVoSuggestion;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookSuggestIndexTests {
+
+    @Test
+    void lastWordIsAPrefixAndEarlierWordsMustMatchWhole() {
+        BookSuggestIndex index = index(100);
+        index.upsertAfterCommit(book(1L, "Clean Code", "Robert Martin"));
+        index.upsertAfterCommit(book(2L, "Code Complete", "Steve McConnell"));
+        index.upsertAfterCommit(book(3L, "The Clean Coder", "Robert Martin"));
+
+        assertThat(ids(index.suggest("co", 10))).containsExactly(1L, 2L, 3L);
+        assertThat(ids(index.suggest("clean co", 10))).containsExactly(1L, 3L);
+        assertThat(ids(index.suggest("clea code", 10))).isEmpty();
+        assertThat(ids(index.suggest("ROBERT m", 10))).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void caseAndAccentsAreIgnored() {
+        BookVoResponse zola = book(7L, "Thérèse Raquin", "Émile Zola");
+        BookSuggestIndex index = index(100);
+        index.upsertAfterCommit(zola);
+
+        assertThat(ids(index.suggest("emi", 10))).containsExactly(7L);
+        assertThat(ids(index.suggest("THERESE r", 10))).containsExactly(7L);
+    }
+
+    @Test
+    void updatesAndDeletesShadowCompactedBooks() throws Exception {
+        BookSuggestIndex index = index(3);
+        index.upsertAfterCommit(book(1L, "Clean Code", "Robert Martin"));
+        index.upsertAfterCommit(book(2L, "Code Complete", "Steve McConnell"));
+        index.upsertAfterCommit(book(3L, "Refactoring", "Martin Fowler"));
+        awaitCompactions(index, 1);
+
+        index.upsertAfterCommit(book(1L, "Working Effectively", "Michael Feathers"));
+        index.removeAfterCommit(2L);
+
+        assertThat(ids(index.suggest("co", 10))).isEmpty();
+        assertThat(ids(index.suggest("mar", 10))).containsExactly(3L);
+        assertThat(ids(index.suggest("work", 10))).containsExactly(1L);
+
+        index.upsertAfterCommit(book(4L, "Domain-Driven Design", "Eric Evans"));
+        awaitCompactions(index, 2);
+
+        assertThat(index.stats().getBooks()).isEqualTo(3);
+        assertThat(index.stats().getDeltaEntries()).isZero();
+        assertThat(ids(index.suggest("mar", 10))).containsExactly(3L);
+        assertThat(ids(index.suggest("d", 10))).containsExactly(4L);
+    }
+
+    @Test
+    void limitKeepsTheBestOrderedSuggestions() {
+        BookSuggestIndex index = index(100);
+        for (long id = 1; id <= 20; id++) {
+            index.upsertAfterCommit(book(id, "Book " + id, "Author"));
+        }
+
+        assertThat(ids(index.suggest("book", 3))).containsExactly(1L, 2L, 3L);
+    }
+
+    private static BookSuggestIndex index(int compactThreshold) {
+        return new BookSuggestIndex(null, null, true, 1000, compactThreshold, 20_000);
+    }
+
+    private static BookVoResponse book(Long id, String title, String author) {
+        return new BookVoResponse(id, title, author, "isbn-" + id, null);
+    }
+
+    private static List<Long> ids(List<BookVoSuggestion> suggestions) {
+        return suggestions.stream().map(BookVoSuggestion::getId).toList();
+    }
+
+    private static void awaitCompactions(BookSuggestIndex index, long count) throws InterruptedException {
+        for (int i = 0; i < 500 && index.stats().getCompactions() < count; i++) {
+            Thread.sleep(10);
+        }
+        assertThat(index.stats().getCompactions()).isEqualTo(count);
+    }
+}